@@ -3,8 +3,12 @@ package com.tankit.client;
 import com.tankit.asset.proto.AssetRequest;
 import com.tankit.asset.proto.AssetResponse;
 import com.tankit.asset.proto.AssetServiceGrpc;
+import com.tankit.asset.proto.HealthCheckRequest;
+import com.tankit.asset.proto.HealthCheckResponse;
+import com.tankit.asset.proto.TraceSummary;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.StatusRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,6 +24,7 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -37,6 +42,27 @@ public class AssetClientApplication {
     @Value("${app.batch-size:1000}")
     private int batchSize;
 
+    @Value("${app.request-deadline-ms:10000}")
+    private long requestDeadlineMs;
+
+    @Value("${app.ready-timeout-ms:60000}")
+    private long readyTimeoutMs;
+
+    @Value("${app.trace-requests:false}")
+    private boolean traceRequests;
+
+    @Value("${app.owner-routing.enabled:true}")
+    private boolean ownerRoutingEnabled;
+
+    @Value("${app.near-cache.enabled:false}")
+    private boolean nearCacheEnabled;
+
+    @Value("${app.near-cache.max-entries:100000}")
+    private long nearCacheMaxEntries;
+
+    @Value("${app.near-cache.passes:3}")
+    private int nearCachePasses;
+
     public static void main(String[] args) {
         SpringApplication.run(AssetClientApplication.class, args);
     }
@@ -46,15 +72,53 @@ public class AssetClientApplication {
         return args -> {
             logger.info("Starting Asset Client using round-robin channel creation...");
 
-            // Wait a bit for services to be ready
-            Thread.sleep(3000);
+            awaitServing();
 
-            performAssetRequests();
+            if (nearCacheEnabled) {
+                performNearCachedRequests();
+            } else if (ownerRoutingEnabled) {
+                performOwnerRoutedRequests();
+            } else {
+                performAssetRequests();
+            }
 
             logger.info("Client test completed.");
         };
     }
 
+    /**
+     * Wait until every instance reports SERVING through Check, i.e. has warmed its L1,
+     * or until the ready timeout runs out
+     */
+    private void awaitServing() throws InterruptedException {
+        long giveUpAt = System.currentTimeMillis() + readyTimeoutMs;
+        for (int port : GRPC_PORTS) {
+            ManagedChannel channel = ManagedChannelBuilder.forAddress(GRPC_HOST, port).usePlaintext().build();
+            try {
+                HealthCheckResponse.ServingStatus status = HealthCheckResponse.ServingStatus.UNKNOWN;
+                while (status != HealthCheckResponse.ServingStatus.SERVING) {
+                    try {
+                        status = AssetServiceGrpc.newBlockingStub(channel)
+                                .withDeadlineAfter(1, TimeUnit.SECONDS)
+                                .check(HealthCheckRequest.getDefaultInstance())
+                                .getStatus();
+                    } catch (StatusRuntimeException e) {
+                        status = HealthCheckResponse.ServingStatus.UNKNOWN;
+                    }
+                    if (status != HealthCheckResponse.ServingStatus.SERVING) {
+                        if (System.currentTimeMillis() >= giveUpAt) {
+                            logger.warn("Instance on port {} still {} after {} ms, starting anyway", port, status, readyTimeoutMs);
+                            break;
+                        }
+                        Thread.sleep(500);
+                    }
+                }
+            } finally {
+                channel.shutdown();
+            }
+        }
+    }
+
     private void performAssetRequests() throws InterruptedException {
         final int numInstances = GRPC_PORTS.size();
         final int NUM_BATCHES = totalAssetCount / batchSize;
@@ -89,22 +153,38 @@ public class AssetClientApplication {
 
                 try {
                     AssetServiceGrpc.AssetServiceBlockingStub blockingStub =
-                            AssetServiceGrpc.newBlockingStub(channel);
+                            AssetServiceGrpc.newBlockingStub(channel)
+                                    .withDeadlineAfter(requestDeadlineMs, TimeUnit.MILLISECONDS);
 
                     AssetRequest request = AssetRequest.newBuilder()
                             .addAllAssetIds(batch)
                             .setBatchSize(batchSize)
+                            .setTrace(traceRequests)
                             .build();
 
                     Iterator<AssetResponse> responseIterator = blockingStub.getAssets(request);
 
                     int assetsFound = 0;
+                    int unresolved = 0;
                     while (responseIterator.hasNext()) {
                         AssetResponse resp = responseIterator.next();
                         assetsFound += resp.getTotalFound();
+                        unresolved += resp.getUnresolvedAssetIdsCount();
                         totalProcessingTime.addAndGet(resp.getProcessingTimeMs());
+                        if (resp.hasTrace()) {
+                            TraceSummary trace = resp.getTrace();
+                            logger.info("Batch {} trace: total {} us, L1 {} us ({}), L2 {} us ({}), decode {} us, convert {} us, onNext {} us",
+                                    batchNum + 1, trace.getTotalNanos() / 1000,
+                                    trace.getL1LookupNanos() / 1000, trace.getL1Lookups(),
+                                    trace.getL2FetchNanos() / 1000, trace.getL2Fetches(),
+                                    trace.getDecodeNanos() / 1000, trace.getConvertNanos() / 1000,
+                                    trace.getOnNextNanos() / 1000);
+                        }
                     }
 
+                    if (unresolved > 0) {
+                        logger.warn("Batch {} hit its deadline with {} assets unresolved.", batchNum + 1, unresolved);
+                    }
                     logger.info("Batch {} processed with {} assets found.", batchNum + 1, assetsFound);
                     totalAssetsReceived.addAndGet(assetsFound);
                     totalBatchesProcessed.incrementAndGet();
@@ -139,7 +219,122 @@ public class AssetClientApplication {
         logger.info("Success rate: {}%", (totalAssetsReceived.get() * 100.0 / totalAssetCount));
     }
 
+    /**
+     * Request the full ID set through an ownership-aware client, which splits every batch
+     * by owning instance so lookups land on the instance that warmed them.
+     */
+    private void performOwnerRoutedRequests() throws InterruptedException {
+        final int NUM_BATCHES = totalAssetCount / batchSize;
+
+        List<String> seeds = new ArrayList<>(GRPC_PORTS.size());
+        for (int port : GRPC_PORTS) {
+            seeds.add(GRPC_HOST + ":" + port);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(GRPC_PORTS.size());
+        List<String> assetIds = generateAssetIds(totalAssetCount);
+
+        try (OwnerRoutingAssetClient client = new OwnerRoutingAssetClient(seeds, requestDeadlineMs)) {
+            long startTime = System.currentTimeMillis();
+            AtomicInteger totalAssetsReceived = new AtomicInteger(0);
+            AtomicInteger totalBatchesProcessed = new AtomicInteger(0);
+            List<Future<?>> futures = new ArrayList<>();
 
+            for (int i = 0; i < NUM_BATCHES; i++) {
+                final int batchNum = i;
+                futures.add(executor.submit(() -> {
+                    int startIdx = batchNum * batchSize;
+                    int endIdx = Math.min(startIdx + batchSize, totalAssetCount);
+                    try {
+                        int assetsFound = client.getAssets(assetIds.subList(startIdx, endIdx)).size();
+                        logger.info("Batch {} processed with {} assets found.", batchNum + 1, assetsFound);
+                        totalAssetsReceived.addAndGet(assetsFound);
+                        totalBatchesProcessed.incrementAndGet();
+                    } catch (Exception ex) {
+                        logger.error("Error processing batch {}", batchNum + 1, ex);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (Exception e) {
+                    logger.error("Error in batch execution", e);
+                }
+            }
+
+            long elapsed = System.currentTimeMillis() - startTime;
+            logger.info("=== PERFORMANCE RESULTS (owner routing) ===");
+            logger.info("Total time: {} ms", elapsed);
+            logger.info("Total assets requested: {}", totalAssetCount);
+            logger.info("Total assets received: {}", totalAssetsReceived.get());
+            logger.info("Total batches processed: {}", totalBatchesProcessed.get());
+            logger.info("Assets unresolved at deadline: {}", client.getUnresolvedCount());
+            logger.info("Overall throughput: {} assets/sec", (totalAssetsReceived.get() * 1000.0 / elapsed));
+            logger.info("Success rate: {}%", (totalAssetsReceived.get() * 100.0 / totalAssetCount));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Repeatedly request the full ID set through one near-caching client per instance,
+     * reporting how much of each pass was answered locally.
+     */
+    private void performNearCachedRequests() throws InterruptedException {
+        final int numInstances = GRPC_PORTS.size();
+        final int NUM_BATCHES = totalAssetCount / batchSize;
+
+        List<NearCacheAssetClient> clients = new ArrayList<>(numInstances);
+        for (int port : GRPC_PORTS) {
+            ManagedChannel channel = ManagedChannelBuilder.forAddress(GRPC_HOST, port).usePlaintext().build();
+            clients.add(new NearCacheAssetClient(channel, nearCacheMaxEntries, requestDeadlineMs));
+        }
+        // Give the invalidation streams a moment to connect
+        Thread.sleep(500);
+
+        ExecutorService executor = Executors.newFixedThreadPool(numInstances);
+        List<String> assetIds = generateAssetIds(totalAssetCount);
+
+        try {
+            for (int pass = 1; pass <= nearCachePasses; pass++) {
+                long startTime = System.currentTimeMillis();
+                long hitsBefore = clients.stream().mapToLong(NearCacheAssetClient::getHitCount).sum();
+                long unchangedBefore = clients.stream().mapToLong(NearCacheAssetClient::getUnchangedCount).sum();
+                AtomicInteger totalAssetsReceived = new AtomicInteger(0);
+                List<Future<?>> futures = new ArrayList<>();
+
+                for (int i = 0; i < NUM_BATCHES; i++) {
+                    final int batchNum = i;
+                    futures.add(executor.submit(() -> {
+                        int startIdx = batchNum * batchSize;
+                        int endIdx = Math.min(startIdx + batchSize, totalAssetCount);
+                        NearCacheAssetClient client = clients.get(batchNum % numInstances);
+                        try {
+                            totalAssetsReceived.addAndGet(client.getAssets(assetIds.subList(startIdx, endIdx)).size());
+                        } catch (Exception ex) {
+                            logger.error("Error processing batch {}", batchNum + 1, ex);
+                        }
+                    }));
+                }
+                for (Future<?> f : futures) {
+                    try {
+                        f.get();
+                    } catch (Exception e) {
+                        logger.error("Error in batch execution", e);
+                    }
+                }
+
+                long elapsed = System.currentTimeMillis() - startTime;
+                long hits = clients.stream().mapToLong(NearCacheAssetClient::getHitCount).sum() - hitsBefore;
+                long unchanged = clients.stream().mapToLong(NearCacheAssetClient::getUnchangedCount).sum() - unchangedBefore;
+                logger.info("Pass {}: {} assets in {} ms, near-cache hit rate {}%, {} revalidated unchanged", pass,
+                        totalAssetsReceived.get(), elapsed, hits * 100.0 / totalAssetCount, unchanged);
+            }
+        } finally {
+            executor.shutdown();
+            clients.forEach(NearCacheAssetClient::close);
+        }
+    }
 
     private List<String> generateAssetIds(int count) {
         List<String> assetIds = new ArrayList<>(count);
@@ -0,0 +1,222 @@
+package com.tankit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.ByteString;
+import com.tankit.asset.proto.Asset;
+import com.tankit.asset.proto.AssetInvalidation;
+import com.tankit.asset.proto.AssetRequest;
+import com.tankit.asset.proto.AssetResponse;
+import com.tankit.asset.proto.AssetServiceGrpc;
+import com.tankit.asset.proto.InvalidationRequest;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embeddable asset client with a bounded local near cache.
+ *
+ * Cached entries are stamped with the epoch of the invalidation stream they were fetched
+ * under. The client keeps a WatchInvalidations stream open to the server: invalidated IDs
+ * are evicted as they arrive, and a reset frame or a broken stream starts a new epoch,
+ * which makes every older entry stale. Only misses and stale entries go to the server,
+ * and nothing is served from the near cache while the stream is down. Stale entries are
+ * revalidated by version: the server only resends assets that actually changed.
+ */
+public class NearCacheAssetClient implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheAssetClient.class);
+    private static final long RECONNECT_DELAY_MS = 1000;
+
+    private final ManagedChannel channel;
+    private final AssetServiceGrpc.AssetServiceBlockingStub blockingStub;
+    private final AssetServiceGrpc.AssetServiceStub asyncStub;
+    private final long requestDeadlineMs;
+    private final String clientId = UUID.randomUUID().toString();
+
+    private final Cache<String, Entry> nearCache;
+    // Invalidations seen recently, so a fetch racing with an invalidation is not cached
+    private final Cache<String, Long> recentInvalidations;
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicLong invalidationCounter = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong unchangedCount = new AtomicLong();
+    private final ScheduledExecutorService reconnectExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "near-cache-invalidations");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean watching;
+    private volatile boolean closed;
+
+    public NearCacheAssetClient(ManagedChannel channel, long maxEntries, long requestDeadlineMs) {
+        this.channel = channel;
+        this.blockingStub = AssetServiceGrpc.newBlockingStub(channel);
+        this.asyncStub = AssetServiceGrpc.newStub(channel);
+        this.requestDeadlineMs = requestDeadlineMs;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+        this.recentInvalidations = Caffeine.newBuilder()
+                .maximumSize(Math.max(1000, maxEntries / 10))
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .build();
+        watchInvalidations();
+    }
+
+    /**
+     * Fetch assets, serving fresh entries from the near cache. Results are returned in
+     * request order; IDs the server does not know are omitted.
+     */
+    public List<Asset> getAssets(List<String> assetIds) {
+        long currentEpoch = epoch.get();
+        boolean usable = watching;
+        Map<String, Asset> found = new HashMap<>(assetIds.size() * 2);
+        List<String> toFetch = new ArrayList<>();
+        List<Entry> stale = new ArrayList<>();
+        boolean anyKnown = false;
+
+        for (String assetId : assetIds) {
+            Entry entry = nearCache.getIfPresent(assetId);
+            if (usable && entry != null && entry.epoch == currentEpoch) {
+                found.put(assetId, entry.asset);
+            } else {
+                toFetch.add(assetId);
+                stale.add(entry);
+                anyKnown |= entry != null;
+            }
+        }
+        hits.addAndGet(found.size());
+        misses.addAndGet(toFetch.size());
+
+        if (!toFetch.isEmpty()) {
+            long fetchStamp = invalidationCounter.get();
+            AssetRequest.Builder request = AssetRequest.newBuilder()
+                    .addAllAssetIds(toFetch)
+                    .setBatchSize(toFetch.size());
+            if (anyKnown) {
+                for (Entry entry : stale) {
+                    request.addKnownVersions(entry == null ? 0 : entry.asset.getVersion());
+                }
+            }
+            Iterator<AssetResponse> responses = blockingStub
+                    .withDeadlineAfter(requestDeadlineMs, TimeUnit.MILLISECONDS)
+                    .getAssets(request.build());
+            while (responses.hasNext()) {
+                AssetResponse response = responses.next();
+                for (Asset asset : response.getAssetsList()) {
+                    found.put(asset.getAssetId(), asset);
+                    cacheIfCurrent(asset, usable, currentEpoch, fetchStamp);
+                }
+                ByteString unchanged = response.getUnchangedBitmap();
+                for (int i = 0; i < toFetch.size() && (i >>> 3) < unchanged.size(); i++) {
+                    if ((unchanged.byteAt(i >>> 3) & (1 << (i & 7))) != 0 && stale.get(i) != null) {
+                        Asset asset = stale.get(i).asset;
+                        found.put(asset.getAssetId(), asset);
+                        unchangedCount.incrementAndGet();
+                        cacheIfCurrent(asset, usable, currentEpoch, fetchStamp);
+                    }
+                }
+            }
+        }
+
+        List<Asset> result = new ArrayList<>(found.size());
+        for (String assetId : assetIds) {
+            Asset asset = found.get(assetId);
+            if (asset != null) {
+                result.add(asset);
+            }
+        }
+        return result;
+    }
+
+    public long getHitCount() { return hits.get(); }
+
+    public long getMissCount() { return misses.get(); }
+
+    /** Stale entries the server confirmed unchanged, so their payload was not resent. */
+    public long getUnchangedCount() { return unchangedCount.get(); }
+
+    public long getCachedCount() { return nearCache.estimatedSize(); }
+
+    @Override
+    public void close() {
+        closed = true;
+        watching = false;
+        reconnectExecutor.shutdownNow();
+        channel.shutdown();
+    }
+
+    private void cacheIfCurrent(Asset asset, boolean usable, long fetchEpoch, long fetchStamp) {
+        if (usable && epoch.get() == fetchEpoch && !invalidatedSince(asset.getAssetId(), fetchStamp)) {
+            nearCache.put(asset.getAssetId(), new Entry(asset, fetchEpoch));
+        }
+    }
+
+    private boolean invalidatedSince(String assetId, long stamp) {
+        Long invalidatedAt = recentInvalidations.getIfPresent(assetId);
+        return invalidatedAt != null && invalidatedAt > stamp;
+    }
+
+    private void watchInvalidations() {
+        if (closed) return;
+        InvalidationRequest request = InvalidationRequest.newBuilder().setClientId(clientId).build();
+        asyncStub.watchInvalidations(request, new StreamObserver<AssetInvalidation>() {
+            @Override
+            public void onNext(AssetInvalidation invalidation) {
+                if (invalidation.getReset()) {
+                    // Keep the entries: they are stale now but can still be revalidated by version
+                    epoch.incrementAndGet();
+                    watching = true;
+                }
+                for (String assetId : invalidation.getAssetIdsList()) {
+                    recentInvalidations.put(assetId, invalidationCounter.incrementAndGet());
+                    nearCache.invalidate(assetId);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                logger.warn("Invalidation stream lost: {}", t.getMessage());
+                reconnect();
+            }
+
+            @Override
+            public void onCompleted() {
+                reconnect();
+            }
+        });
+    }
+
+    private void reconnect() {
+        // Invalidations may be missed while disconnected, so nothing cached so far can be trusted
+        watching = false;
+        epoch.incrementAndGet();
+        if (!closed) {
+            reconnectExecutor.schedule(this::watchInvalidations, RECONNECT_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static final class Entry {
+        final Asset asset;
+        final long epoch;
+
+        Entry(Asset asset, long epoch) {
+            this.asset = asset;
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.tankit.client;
+
+import com.tankit.asset.proto.Asset;
+import com.tankit.asset.proto.AssetRequest;
+import com.tankit.asset.proto.AssetResponse;
+import com.tankit.asset.proto.AssetServiceGrpc;
+import com.tankit.asset.proto.OwnershipMap;
+import com.tankit.asset.proto.OwnershipRequest;
+import io.grpc.Deadline;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Embeddable asset client that sends every ID to the instance owning it.
+ *
+ * Each instance warms its L1 with the IDs it owns, so routing by owner keeps lookups in
+ * memory instead of falling through to Redis. The client asks its seed instances for the
+ * ownership map, splits each batch by owner, sends the sub-batches in parallel and merges
+ * the answers back into request order.
+ */
+public class OwnerRoutingAssetClient implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OwnerRoutingAssetClient.class);
+
+    private static final int FNV_OFFSET_BASIS = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final long requestDeadlineMs;
+    private final List<ManagedChannel> ownedChannels = new ArrayList<>();
+    private final AssetServiceGrpc.AssetServiceStub[] stubsByOwner;
+    private final AtomicLong unresolvedCount = new AtomicLong();
+
+    /**
+     * @param seeds host:port of instances to read the ownership map from; instances missing
+     *              from the seeds are reached through the addresses the map publishes
+     */
+    public OwnerRoutingAssetClient(List<String> seeds, long requestDeadlineMs) {
+        this.requestDeadlineMs = requestDeadlineMs;
+
+        Map<Integer, ManagedChannel> byIndex = new HashMap<>();
+        List<String> addresses = new ArrayList<>();
+        int totalInstances = -1;
+        for (String seed : seeds) {
+            ManagedChannel channel = ManagedChannelBuilder.forTarget(seed).usePlaintext().build();
+            ownedChannels.add(channel);
+            OwnershipMap map = AssetServiceGrpc.newBlockingStub(channel)
+                    .withDeadlineAfter(requestDeadlineMs, TimeUnit.MILLISECONDS)
+                    .getOwnership(OwnershipRequest.getDefaultInstance());
+            if (map.getScheme() != OwnershipMap.Scheme.FNV1A32_MOD) {
+                throw new IllegalStateException("Unsupported ownership scheme " + map.getScheme() + " from " + seed);
+            }
+            if (totalInstances >= 0 && map.getTotalInstances() != totalInstances) {
+                throw new IllegalStateException(String.format(
+                        "Inconsistent ownership maps: %s reports %d instances, expected %d",
+                        seed, map.getTotalInstances(), totalInstances));
+            }
+            totalInstances = map.getTotalInstances();
+            byIndex.putIfAbsent(map.getInstanceIndex(), channel);
+            if (addresses.isEmpty()) {
+                addresses.addAll(map.getInstanceAddressesList());
+            }
+        }
+        if (totalInstances <= 0) {
+            throw new IllegalArgumentException("No seed instances given");
+        }
+
+        stubsByOwner = new AssetServiceGrpc.AssetServiceStub[totalInstances];
+        for (int i = 0; i < totalInstances; i++) {
+            ManagedChannel channel = byIndex.get(i);
+            if (channel == null) {
+                if (i >= addresses.size()) {
+                    throw new IllegalStateException("No address known for instance " + i);
+                }
+                channel = ManagedChannelBuilder.forTarget(addresses.get(i)).usePlaintext().build();
+                ownedChannels.add(channel);
+            }
+            stubsByOwner[i] = AssetServiceGrpc.newStub(channel);
+        }
+        logger.info("Routing by ownership across {} instances", totalInstances);
+    }
+
+    /**
+     * Fetch assets from their owners in parallel under one shared deadline. Results are
+     * returned in request order; IDs the server does not know or could not resolve in time
+     * are omitted.
+     */
+    public List<Asset> getAssets(List<String> assetIds) throws InterruptedException {
+        int owners = stubsByOwner.length;
+        List<List<String>> subBatches = new ArrayList<>(owners);
+        for (int i = 0; i < owners; i++) {
+            subBatches.add(new ArrayList<>(assetIds.size() / owners + 1));
+        }
+        for (String assetId : assetIds) {
+            subBatches.get(ownerOf(assetId, owners)).add(assetId);
+        }
+
+        Deadline deadline = Deadline.after(requestDeadlineMs, TimeUnit.MILLISECONDS);
+        CountDownLatch done = new CountDownLatch(owners);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        // Each owner's observer only touches its own map, and the latch publishes them all
+        List<Map<String, Asset>> foundByOwner = new ArrayList<>(owners);
+        for (int i = 0; i < owners; i++) {
+            List<String> subBatch = subBatches.get(i);
+            Map<String, Asset> found = new HashMap<>(subBatch.size() * 2);
+            foundByOwner.add(found);
+            if (subBatch.isEmpty()) {
+                done.countDown();
+                continue;
+            }
+            AssetRequest request = AssetRequest.newBuilder()
+                    .addAllAssetIds(subBatch)
+                    .setBatchSize(subBatch.size())
+                    .build();
+            stubsByOwner[i].withDeadline(deadline).getAssets(request, new StreamObserver<AssetResponse>() {
+                @Override
+                public void onNext(AssetResponse response) {
+                    for (Asset asset : response.getAssetsList()) {
+                        found.put(asset.getAssetId(), asset);
+                    }
+                    unresolvedCount.addAndGet(response.getUnresolvedAssetIdsCount());
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    failure.compareAndSet(null, t);
+                    done.countDown();
+                }
+
+                @Override
+                public void onCompleted() {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        if (failure.get() != null) {
+            throw Status.fromThrowable(failure.get()).asRuntimeException();
+        }
+
+        List<Asset> result = new ArrayList<>(assetIds.size());
+        for (String assetId : assetIds) {
+            Asset asset = foundByOwner.get(ownerOf(assetId, owners)).get(assetId);
+            if (asset != null) {
+                result.add(asset);
+            }
+        }
+        return result;
+    }
+
+    /** IDs the server reported as unresolved when a deadline ran out. */
+    public long getUnresolvedCount() { return unresolvedCount.get(); }
+
+    @Override
+    public void close() {
+        ownedChannels.forEach(ManagedChannel::shutdown);
+    }
+
+    /**
+     * Owning instance of an asset; must match the service's FNV1A32_MOD scheme
+     */
+    static int ownerOf(String assetId, int totalInstances) {
+        int hash = FNV_OFFSET_BASIS;
+        for (byte b : assetId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return Integer.remainderUnsigned(hash, totalInstances);
+    }
+}
@@ -1,9 +1,12 @@
 package com.tankit.service;
 
-import com.github.benmanes.caffeine.cache.Cache;
+import com.tankit.service.cache.AssetScanIndex;
+import com.tankit.service.cache.CacheWarmer;
+import com.tankit.service.cache.PartitionOwnership;
 import com.tankit.service.data.AssetDataGenerator;
 import com.tankit.service.model.Asset;
-import com.tankit.service.repository.AssetRedisRepository;
+import com.tankit.service.model.CompactAsset;
+import com.tankit.service.repository.AssetRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,9 +16,11 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -23,6 +28,7 @@ import java.util.stream.Collectors;
  */
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class AssetServiceApplication {
 
     private static final Logger logger = LoggerFactory.getLogger(AssetServiceApplication.class);
@@ -30,9 +36,15 @@ public class AssetServiceApplication {
     @Value("${app.initialize-data:true}")
     private boolean initializeData;
 
+    @Value("${app.fast-start:true}")
+    private boolean fastStart;
+
     @Value("${app.asset-count:100000}")
     private int totalAssetCount;
 
+    @Value("${app.data-seed:42}")
+    private long dataSeed;
+
     @Value("${app.cache-populate-count:30000}")
     private int cachePopulateCount;
 
@@ -46,10 +58,13 @@ public class AssetServiceApplication {
     private AssetDataGenerator dataGenerator;
 
     @Autowired
-    private AssetRedisRepository redisRepository;
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private CacheWarmer cacheWarmer;
 
     @Autowired
-    private Cache<String, Asset> assetCache;
+    private AssetScanIndex scanIndex;
 
     public static void main(String[] args) {
         // JVM arguments for profiling and memory optimization
@@ -65,78 +80,75 @@ public class AssetServiceApplication {
     @Bean
     public CommandLineRunner initializeData() {
         return args -> {
+            if (!fastStart) {
+                startUp();
+                return;
+            }
+            // The gRPC server is already listening; Check reports NOT_SERVING until the L1 is warm enough
+            Thread startup = new Thread(this::startUp, "startup-warm-up");
+            startup.setDaemon(true);
+            startup.start();
+        };
+    }
+
+    private void startUp() {
+        try {
             if (initializeData) {
                 initializeAssetData();
-                populateCacheForInstance(instanceIdx, totalInstances, cachePopulateCount);
+                cacheWarmer.warm(new PartitionOwnership(instanceIdx, totalInstances), cachePopulateCount);
+            } else {
+                cacheWarmer.skip();
             }
-        };
+            scanIndex.rebuild();
+        } catch (Exception e) {
+            logger.error("Startup initialization failed", e);
+            cacheWarmer.skip();
+        }
     }
 
     private void initializeAssetData() {
         logger.info("Checking if Redis needs to be initialized...");
 
-        long existingCount = redisRepository.getTotalAssetCount();
+        long existingCount = assetRepository.getTotalAssetCount();
         logger.info("Found {} existing assets in Redis", existingCount);
 
         if (existingCount < totalAssetCount) {
-            logger.info("Generating {} assets...", totalAssetCount);
+            logger.info("Generating {} assets from seed {}...", totalAssetCount, dataSeed);
             long startTime = System.currentTimeMillis();
 
-            List<Asset> assets = dataGenerator.generateAssets(totalAssetCount);
-
-            logger.info("Saving {} assets to Redis...", assets.size());
-            redisRepository.saveAssets(assets);
+            // Blocks are generated in parallel and saved as they come, never holding the full dataset.
+            // Only assets missing from the store are written: existing ones keep their data and
+            // any updates since, and a new asset cannot be cached anywhere yet, so the load
+            // publishes no invalidations and leaves every warmed L1 intact.
+            AtomicLong loaded = new AtomicLong();
+            dataGenerator.generateBlocks(totalAssetCount, dataSeed)
+                    .map(block -> existingCount == 0 ? block : withoutExisting(block))
+                    .filter(block -> !block.isEmpty())
+                    .forEach(block -> {
+                        assetRepository.saveAssets(block, false);
+                        loaded.addAndGet(block.size());
+                    });
 
             long endTime = System.currentTimeMillis();
-            logger.info("Completed data initialization in {} ms", endTime - startTime);
+            logger.info("Completed data initialization with {} new assets in {} ms", loaded.get(), endTime - startTime);
         } else {
             logger.info("Redis already contains {} assets, skipping initialization", existingCount);
         }
     }
 
-    /**
-     * Populate local Caffeine cache with unique subset of assets,
-     * partitioned by instanceIndex to avoid overlap across multiple service instances.
-     *
-     * @param instanceIndex zero-based index of current instance (0,1,2,...)
-     * @param totalInstances total number of service instances (e.g., 3)
-     * @param cachePopulateCount number of assets to cache per instance (e.g., 300)
-     */
-    public void populateCacheForInstance(int instanceIndex, int totalInstances, int cachePopulateCount) {
-        logger.info("Populating cache partition for instance {} with {} assets...", instanceIndex, cachePopulateCount);
-
-        try {
-            Set<String> allAssetIds = redisRepository.getAllAssetIds();
-            List<String> sortedAssetIds = allAssetIds.stream()
-                    .sorted()
-                    .collect(Collectors.toList());
-
-            int totalAssets = sortedAssetIds.size();
-
-            if (cachePopulateCount * totalInstances > totalAssets) {
-                throw new IllegalStateException(String.format(
-                        "Not enough assets (%d) in Redis to partition %d assets each for %d instances",
-                        totalAssets, cachePopulateCount, totalInstances));
-            }
-
-            int fromIndex = instanceIndex * cachePopulateCount;
-            int toIndex = Math.min(fromIndex + cachePopulateCount, totalAssets);
-
-            List<String> partitionAssetIds = sortedAssetIds.subList(fromIndex, toIndex);
-
-            for (String assetId : partitionAssetIds) {
-                Asset asset = redisRepository.findAssetById(assetId);
-                if (asset != null) {
-                    assetCache.put(assetId, asset);
-                }
-            }
-
-            logger.info("Instance {} cache populated with {} assets. Cache size: {}",
-                    instanceIndex, partitionAssetIds.size(), assetCache.estimatedSize());
-
-        } catch (Exception e) {
-            logger.error("Error populating cache for instance " + instanceIndex, e);
+    private List<Asset> withoutExisting(List<Asset> block) {
+        Set<String> existing = assetRepository.findAssetsByIds(block.stream()
+                        .map(Asset::getAssetId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .map(CompactAsset::getAssetId)
+                .collect(Collectors.toSet());
+        if (existing.isEmpty()) {
+            return block;
         }
+        return block.stream()
+                .filter(asset -> !existing.contains(asset.getAssetId()))
+                .collect(Collectors.toList());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,142 @@
+package com.tankit.service.benchmark;
+
+import com.tankit.service.data.AssetDataGenerator;
+import com.tankit.service.model.Asset;
+import com.tankit.service.model.CompactAsset;
+import com.tankit.service.repository.AssetLayout;
+import com.tankit.service.repository.AssetRedisRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the Redis asset layouts on the same generated dataset: pipelined batch write
+ * time, pipelined batch read time (fetch plus decode), single-read latency and memory per
+ * asset. Enabled with {@code benchmark.layouts.enabled}; the results are logged.
+ *
+ * Benchmark assets get IDs prefixed with {@code BENCH_} and are written in each layout in
+ * turn, then deleted, without publishing invalidations. Run it against a scratch Redis,
+ * since the benchmark assets briefly show up in the shared ID set.
+ */
+@Component
+@ConditionalOnExpression("${benchmark.layouts.enabled:false} and '${repository.type:redis}' == 'redis'")
+public class LayoutBenchmark implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LayoutBenchmark.class);
+    private static final String ID_PREFIX = "BENCH_";
+    private static final int MEMORY_SAMPLE = 100;
+
+    @Value("${benchmark.layouts.asset-count:20000}")
+    private int assetCount;
+
+    @Value("${benchmark.layouts.batch-size:500}")
+    private int batchSize;
+
+    @Value("${benchmark.layouts.rounds:5}")
+    private int rounds;
+
+    @Value("${benchmark.layouts.single-reads:2000}")
+    private int singleReads;
+
+    @Autowired
+    private AssetRedisRepository repository;
+
+    @Autowired
+    private AssetDataGenerator dataGenerator;
+
+    @Override
+    public void run(String... args) {
+        List<CompactAsset> assets = dataGenerator.generateAssets(assetCount, 42L)
+                .map(LayoutBenchmark::toBenchmarkAsset)
+                .collect(Collectors.toList());
+        List<String> ids = assets.stream().map(CompactAsset::getAssetId).collect(Collectors.toList());
+        List<List<String>> idBatches = partition(ids);
+        List<List<CompactAsset>> assetBatches = partition(assets);
+
+        logger.info("=== LAYOUT BENCHMARK: {} assets, batches of {}, {} read rounds ===", assetCount, batchSize, rounds);
+        try {
+            for (AssetLayout layout : AssetLayout.values()) {
+                run(layout, ids, idBatches, assetBatches);
+            }
+        } finally {
+            repository.deleteAssets(ids, false);
+        }
+    }
+
+    private void run(AssetLayout layout, List<String> ids, List<List<String>> idBatches,
+                     List<List<CompactAsset>> assetBatches) {
+        repository.deleteAssets(ids, false);
+
+        long start = System.nanoTime();
+        for (List<CompactAsset> batch : assetBatches) {
+            repository.writeAssets(layout, batch, false);
+        }
+        long writeNanos = System.nanoTime() - start;
+
+        long bytes = 0;
+        int sampled = Math.min(MEMORY_SAMPLE, ids.size());
+        for (int i = 0; i < sampled; i++) {
+            bytes += repository.memoryUsage(ids.get(i));
+        }
+
+        // One untimed pass warms the JIT for this layout's decode path
+        readAll(layout, idBatches);
+        long readNanos = 0;
+        int found = 0;
+        for (int round = 0; round < rounds; round++) {
+            start = System.nanoTime();
+            found = readAll(layout, idBatches);
+            readNanos += System.nanoTime() - start;
+        }
+
+        int singles = Math.min(singleReads, ids.size());
+        start = System.nanoTime();
+        for (int i = 0; i < singles; i++) {
+            repository.findAssetById(layout, ids.get(i));
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        long assetsRead = (long) ids.size() * Math.max(rounds, 1);
+        logger.info("{}: write {} ms ({} assets/s), batch read {} ms/round ({} assets/s, {} found), "
+                        + "single read {} us, {} bytes/asset",
+                layout,
+                writeNanos / 1_000_000, rate(ids.size(), writeNanos),
+                readNanos / 1_000_000 / Math.max(rounds, 1), rate(assetsRead, readNanos), found,
+                singles == 0 ? 0 : singleNanos / 1000 / singles,
+                sampled == 0 ? 0 : bytes / sampled);
+    }
+
+    private int readAll(AssetLayout layout, List<List<String>> idBatches) {
+        int found = 0;
+        for (List<String> batch : idBatches) {
+            found += repository.findAssetsByIds(layout, batch).size();
+        }
+        return found;
+    }
+
+    private <T> List<List<T>> partition(List<T> items) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += batchSize) {
+            batches.add(items.subList(i, Math.min(i + batchSize, items.size())));
+        }
+        return batches;
+    }
+
+    private static CompactAsset toBenchmarkAsset(Asset asset) {
+        asset.setAssetId(ID_PREFIX + asset.getAssetId());
+        asset.setVersion(1);
+        return CompactAsset.from(asset);
+    }
+
+    private static long rate(long count, long nanos) {
+        return nanos == 0 ? 0 : count * 1_000_000_000L / nanos;
+    }
+}
@@ -0,0 +1,99 @@
+package com.tankit.service.cache;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Approximate access-frequency counter: a count-min sketch plus a bounded set of
+ * heavy hitters (top-K).
+ *
+ * The sketch gives a frequency estimate for any key in fixed memory; the heavy-hitter
+ * map remembers which keys those high estimates belong to. The map is allowed to grow
+ * to twice its capacity and is then pruned back to the most frequent entries, which
+ * keeps the per-access cost to a few atomic increments.
+ *
+ * A sketch counts a single interval; start the next interval with a new instance.
+ */
+public class AccessFrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final AtomicIntegerArray counters;
+    private final int widthMask;
+    private final int topK;
+    private final Map<String, Integer> heavyHitters = new ConcurrentHashMap<>();
+    private volatile int admissionThreshold;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param topK number of heavy hitters to retain
+     */
+    public AccessFrequencySketch(int width, int topK) {
+        int w = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.widthMask = w - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * w);
+        this.topK = topK;
+    }
+
+    /**
+     * Record one access to {@code key}
+     */
+    public void record(String key) {
+        int hash = spread(key.hashCode());
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = row * (widthMask + 1) + indexOf(hash, row);
+            int count = counters.incrementAndGet(index);
+            if (count < 0) {
+                counters.set(index, Integer.MAX_VALUE);
+                count = Integer.MAX_VALUE;
+            }
+            estimate = Math.min(estimate, count);
+        }
+
+        if (estimate > admissionThreshold || heavyHitters.containsKey(key)) {
+            heavyHitters.put(key, estimate);
+            if (heavyHitters.size() > 2 * topK) {
+                prune();
+            }
+        }
+    }
+
+    /**
+     * Heavy hitters in descending estimated frequency, at most {@code topK} entries
+     */
+    public List<Map.Entry<String, Integer>> hottest() {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(heavyHitters.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        return entries.size() > topK ? new ArrayList<>(entries.subList(0, topK)) : entries;
+    }
+
+    private synchronized void prune() {
+        if (heavyHitters.size() <= 2 * topK) {
+            return;
+        }
+        List<Map.Entry<String, Integer>> entries = hottest();
+        Set<String> retained = new HashSet<>(entries.size() * 2);
+        for (Map.Entry<String, Integer> entry : entries) {
+            retained.add(entry.getKey());
+        }
+        heavyHitters.keySet().retainAll(retained);
+        admissionThreshold = entries.get(entries.size() - 1).getValue();
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x45D9F3B;
+        return (h ^ (h >>> 16)) & widthMask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,163 @@
+package com.tankit.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.tankit.service.model.CompactAsset;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Grows or shrinks the L1 weight budget from observed heap occupancy and GC time.
+ *
+ * Occupancy is taken from the heap pools' usage after the last collection, so it reflects
+ * live data rather than garbage waiting to be collected. The budget grows while the heap
+ * is below the low watermark and GC is cheap, but only when the cache is pressing on it:
+ * nearly full ({@code cache.asset.adaptive.grow-at-fill}) and evicting. It shrinks as
+ * soon as heap or GC crosses its limit, always staying within the configured floor and
+ * ceiling.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.asset.adaptive.enabled", havingValue = "true")
+public class AdaptiveCacheSizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveCacheSizer.class);
+    private static final long MB = 1024L * 1024L;
+
+    @Value("${cache.asset.adaptive.min-weight-mb:16}")
+    private long minWeightMb;
+
+    @Value("${cache.asset.adaptive.max-weight-mb:512}")
+    private long maxWeightMb;
+
+    @Value("${cache.asset.adaptive.low-heap-occupancy:0.50}")
+    private double lowHeapOccupancy;
+
+    @Value("${cache.asset.adaptive.high-heap-occupancy:0.75}")
+    private double highHeapOccupancy;
+
+    @Value("${cache.asset.adaptive.max-gc-time-ratio:0.05}")
+    private double maxGcTimeRatio;
+
+    @Value("${cache.asset.adaptive.grow-factor:1.10}")
+    private double growFactor;
+
+    @Value("${cache.asset.adaptive.shrink-factor:0.80}")
+    private double shrinkFactor;
+
+    @Value("${cache.asset.adaptive.grow-at-fill:0.90}")
+    private double growAtFill;
+
+    @Autowired
+    private Cache<String, CompactAsset> assetCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Policy.Eviction<String, CompactAsset> eviction;
+    private volatile double heapOccupancy;
+    private volatile double gcTimeRatio;
+    private long lastGcTimeMs;
+    private long lastSampleMs;
+    private long lastEvictionCount;
+
+    @PostConstruct
+    public void init() {
+        Optional<Policy.Eviction<String, CompactAsset>> policy = assetCache.policy().eviction();
+        if (!policy.isPresent() || !policy.get().isWeighted()) {
+            throw new IllegalStateException("Adaptive cache sizing requires a weight-bounded asset cache");
+        }
+        eviction = policy.get();
+        lastGcTimeMs = totalGcTimeMs();
+        lastSampleMs = System.currentTimeMillis();
+        lastEvictionCount = assetCache.stats().evictionCount();
+
+        Gauge.builder("asset.cache.weight.budget", eviction, Policy.Eviction::getMaximum)
+                .baseUnit("bytes")
+                .description("Current L1 weight budget")
+                .register(meterRegistry);
+        Gauge.builder("asset.cache.weight.used", eviction, e -> e.weightedSize().orElse(0L))
+                .baseUnit("bytes")
+                .description("Estimated bytes held by the L1 cache")
+                .register(meterRegistry);
+        Gauge.builder("asset.cache.heap.occupancy", this, s -> s.heapOccupancy)
+                .description("Heap occupancy after the last collection")
+                .register(meterRegistry);
+        Gauge.builder("asset.cache.gc.time.ratio", this, s -> s.gcTimeRatio)
+                .description("Fraction of wall time spent in GC over the last sizing interval")
+                .register(meterRegistry);
+
+        logger.info("Adaptive cache sizing enabled: budget {} MB, bounds [{} MB, {} MB]",
+                eviction.getMaximum() / MB, minWeightMb, maxWeightMb);
+    }
+
+    /**
+     * Re-evaluate the weight budget
+     */
+    @Scheduled(fixedDelayString = "${cache.asset.adaptive.interval-ms:10000}")
+    public void resize() {
+        long now = System.currentTimeMillis();
+        long gcTimeMs = totalGcTimeMs();
+        long elapsed = Math.max(1, now - lastSampleMs);
+        gcTimeRatio = (double) (gcTimeMs - lastGcTimeMs) / elapsed;
+        lastGcTimeMs = gcTimeMs;
+        lastSampleMs = now;
+        heapOccupancy = heapOccupancyAfterGc();
+        long evictionCount = assetCache.stats().evictionCount();
+        long evictions = evictionCount - lastEvictionCount;
+        lastEvictionCount = evictionCount;
+
+        long current = eviction.getMaximum();
+        long target = current;
+        if (heapOccupancy > highHeapOccupancy || gcTimeRatio > maxGcTimeRatio) {
+            target = (long) (current * shrinkFactor);
+        } else if (heapOccupancy < lowHeapOccupancy && evictions > 0
+                && eviction.weightedSize().orElse(0L) >= current * growAtFill) {
+            target = (long) (current * growFactor);
+        }
+        target = Math.max(minWeightMb * MB, Math.min(maxWeightMb * MB, target));
+
+        if (target != current) {
+            eviction.setMaximum(target);
+            logger.info("Cache weight budget {} MB -> {} MB (heap occupancy {}, gc time ratio {})",
+                    current / MB, target / MB, String.format("%.2f", heapOccupancy), String.format("%.3f", gcTimeRatio));
+        }
+    }
+
+    private static double heapOccupancyAfterGc() {
+        long used = 0;
+        long max = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) continue;
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage == null) usage = pool.getUsage();
+            used += usage.getUsed();
+            max += usage.getMax() > 0 ? usage.getMax() : usage.getCommitted();
+        }
+        return max == 0 ? 0.0 : (double) used / max;
+    }
+
+    private static long totalGcTimeMs() {
+        long total = 0;
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean gc : collectors) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,356 @@
+package com.tankit.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.tankit.service.model.CompactAsset;
+import com.tankit.service.repository.AssetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Columnar in-memory index over the assets this instance owns, for ScanAssets.
+ *
+ * A snapshot keeps asset IDs sorted, one bitmap per currency, and market values and
+ * created timestamps as sorted primitive arrays with the ordinals they belong to. A
+ * query turns each predicate into a bitmap (range predicates by binary search) and
+ * intersects them; matches come out in asset ID order, so the last ID returned is a
+ * resume cursor that stays valid across rebuilds.
+ *
+ * Snapshots are rebuilt every {@code cache.scan-index.rebuild-interval-ms}, fetching owned
+ * assets missing from L1 in batches of {@code cache.scan-index.fetch-chunk-size} and
+ * appending each batch straight to the columns. Matches are
+ * candidates only: callers re-check the predicates against the live asset, so a change
+ * since the last rebuild can hide an asset from a scan but never return a wrong one.
+ */
+@Component
+public class AssetScanIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssetScanIndex.class);
+
+    @Value("${cache.scan-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.scan-index.fetch-chunk-size:500}")
+    private int fetchChunkSize;
+
+    @Value("${app.instance-index}")
+    private int instanceIdx;
+
+    @Value("${app.total-instances}")
+    private int totalInstances;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private Cache<String, CompactAsset> assetCache;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Rebuild the snapshot from the owned partition of the repository
+     */
+    @Scheduled(fixedDelayString = "${cache.scan-index.rebuild-interval-ms:60000}",
+            initialDelayString = "${cache.scan-index.rebuild-interval-ms:60000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        PartitionOwnership ownership = new PartitionOwnership(instanceIdx, totalInstances);
+        SnapshotBuilder builder = new SnapshotBuilder();
+        List<String> misses = new ArrayList<>(fetchChunkSize);
+        try (Stream<String> assetIds = assetRepository.scanAssetIds()) {
+            Iterator<String> it = assetIds.distinct().filter(ownership::owns).iterator();
+            while (it.hasNext()) {
+                // Read through without populating L1, so a rebuild does not churn the cache
+                String assetId = it.next();
+                CompactAsset asset = assetCache.getIfPresent(assetId);
+                if (asset != null) {
+                    builder.add(asset);
+                } else {
+                    misses.add(assetId);
+                    if (misses.size() >= fetchChunkSize) {
+                        addAll(builder, misses);
+                    }
+                }
+            }
+            addAll(builder, misses);
+        } catch (Exception e) {
+            logger.warn("Failed to rebuild scan index", e);
+            return;
+        }
+        snapshot = builder.build();
+        logger.info("Rebuilt scan index over {} owned assets in {} ms", snapshot.ids.length, System.currentTimeMillis() - start);
+    }
+
+    private void addAll(SnapshotBuilder builder, List<String> assetIds) {
+        if (assetIds.isEmpty()) {
+            return;
+        }
+        for (CompactAsset asset : assetRepository.findAssetsByIds(assetIds)) {
+            builder.add(asset);
+        }
+        assetIds.clear();
+    }
+
+    public int size() {
+        return snapshot.ids.length;
+    }
+
+    /**
+     * Start a scan over the current snapshot
+     *
+     * @param afterId resume cursor: only IDs sorting after it are returned (null or empty to start)
+     */
+    public Scan scan(Query query, String afterId) {
+        return snapshot.scan(query, afterId);
+    }
+
+    /**
+     * Scan predicates; null bounds are open. Ranges are inclusive below, exclusive above.
+     */
+    public static final class Query {
+        private final Set<String> currencies;
+        private final Double minMarketValue;
+        private final Double maxMarketValue;
+        private final Long createdFrom;
+        private final Long createdUntil;
+
+        /**
+         * @param currencies currencies to match, or empty for any
+         */
+        public Query(Set<String> currencies, Double minMarketValue, Double maxMarketValue,
+                     Long createdFrom, Long createdUntil) {
+            this.currencies = currencies;
+            this.minMarketValue = minMarketValue;
+            this.maxMarketValue = maxMarketValue;
+            this.createdFrom = createdFrom;
+            this.createdUntil = createdUntil;
+        }
+
+        /**
+         * Check the predicates against a live asset
+         */
+        public boolean matches(CompactAsset asset) {
+            if (!currencies.isEmpty() && !currencies.contains(asset.getCurrency())) {
+                return false;
+            }
+            if (minMarketValue != null || maxMarketValue != null) {
+                double value = asset.getMarketValue();
+                if (!asset.hasMarketValue()
+                        || (minMarketValue != null && value < minMarketValue)
+                        || (maxMarketValue != null && value >= maxMarketValue)) {
+                    return false;
+                }
+            }
+            if (createdFrom != null || createdUntil != null) {
+                long created = asset.getCreatedTimestamp();
+                return asset.hasCreatedTimestamp()
+                        && (createdFrom == null || created >= createdFrom)
+                        && (createdUntil == null || created < createdUntil);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Iterator over matching asset IDs in ID order
+     */
+    public static final class Scan {
+        private final String[] ids;
+        private final BitSet matches;
+        private int next;
+
+        private Scan(String[] ids, BitSet matches, int from) {
+            this.ids = ids;
+            this.matches = matches;
+            this.next = from;
+        }
+
+        /**
+         * @return the next matching asset ID, or null when the scan is exhausted
+         */
+        public String next() {
+            int ordinal = matches == null ? (next < ids.length ? next : -1) : matches.nextSetBit(next);
+            if (ordinal < 0) {
+                next = ids.length;
+                return null;
+            }
+            next = ordinal + 1;
+            return ids[ordinal];
+        }
+    }
+
+    /**
+     * Columns in arrival order, filled one asset at a time so a rebuild never holds the
+     * assets themselves; {@link #build} sorts them into ID order
+     */
+    private static final class SnapshotBuilder {
+        private String[] ids = new String[1024];
+        private double[] marketValues = new double[1024];
+        private long[] timestamps = new long[1024];
+        private final Map<String, BitSet> byCurrency = new HashMap<>();
+        private int size;
+
+        void add(CompactAsset asset) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                marketValues = Arrays.copyOf(marketValues, size * 2);
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+            }
+            ids[size] = asset.getAssetId();
+            marketValues[size] = asset.getMarketValue();
+            timestamps[size] = asset.getCreatedTimestamp();
+            byCurrency.computeIfAbsent(asset.getCurrency(), c -> new BitSet()).set(size);
+            size++;
+        }
+
+        Snapshot build() {
+            int n = size;
+            int[] byId = IntStream.range(0, n)
+                    .boxed()
+                    .sorted(Comparator.comparing(i -> ids[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            // rank[arrival ordinal] = ordinal in ID order
+            int[] rank = new int[n];
+            String[] sortedIds = new String[n];
+            double[] sortedValues = new double[n];
+            long[] sortedCreated = new long[n];
+            for (int i = 0; i < n; i++) {
+                rank[byId[i]] = i;
+                sortedIds[i] = ids[byId[i]];
+                sortedValues[i] = marketValues[byId[i]];
+                sortedCreated[i] = timestamps[byId[i]];
+            }
+            Map<String, BitSet> sortedByCurrency = new HashMap<>();
+            byCurrency.forEach((currency, arrivals) -> {
+                BitSet ordinals = new BitSet(n);
+                for (int i = arrivals.nextSetBit(0); i >= 0; i = arrivals.nextSetBit(i + 1)) {
+                    ordinals.set(rank[i]);
+                }
+                sortedByCurrency.put(currency, ordinals);
+            });
+            return new Snapshot(sortedIds, sortedValues, sortedCreated, sortedByCurrency);
+        }
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new SnapshotBuilder().build();
+
+        final String[] ids;
+        final Map<String, BitSet> byCurrency;
+        final double[] sortedMarketValues;
+        final int[] marketValueOrdinals;
+        final long[] sortedTimestamps;
+        final int[] timestampOrdinals;
+
+        /**
+         * @param ids asset IDs in sorted order; the other columns are indexed the same way
+         */
+        Snapshot(String[] ids, double[] marketValues, long[] timestamps, Map<String, BitSet> byCurrency) {
+            this.ids = ids;
+            this.byCurrency = byCurrency;
+            int n = ids.length;
+
+            // Absent values are left out of the sorted columns, so they never match a range
+            marketValueOrdinals = IntStream.range(0, n)
+                    .filter(i -> !Double.isNaN(marketValues[i]))
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(i -> marketValues[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            sortedMarketValues = new double[marketValueOrdinals.length];
+            for (int i = 0; i < marketValueOrdinals.length; i++) {
+                sortedMarketValues[i] = marketValues[marketValueOrdinals[i]];
+            }
+            timestampOrdinals = IntStream.range(0, n)
+                    .filter(i -> timestamps[i] != CompactAsset.NO_TIMESTAMP)
+                    .boxed()
+                    .sorted(Comparator.comparingLong(i -> timestamps[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            sortedTimestamps = new long[timestampOrdinals.length];
+            for (int i = 0; i < timestampOrdinals.length; i++) {
+                sortedTimestamps[i] = timestamps[timestampOrdinals[i]];
+            }
+        }
+
+        Scan scan(Query query, String afterId) {
+            BitSet matches = null;
+            if (!query.currencies.isEmpty()) {
+                matches = new BitSet(ids.length);
+                for (String currency : query.currencies) {
+                    BitSet ordinals = byCurrency.get(currency);
+                    if (ordinals != null) matches.or(ordinals);
+                }
+            }
+            if (query.minMarketValue != null || query.maxMarketValue != null) {
+                int from = query.minMarketValue == null ? 0 : lowerBound(sortedMarketValues, query.minMarketValue);
+                int to = query.maxMarketValue == null ? sortedMarketValues.length : lowerBound(sortedMarketValues, query.maxMarketValue);
+                matches = intersect(matches, marketValueOrdinals, from, to);
+            }
+            if (query.createdFrom != null || query.createdUntil != null) {
+                int from = query.createdFrom == null ? 0 : lowerBound(sortedTimestamps, query.createdFrom);
+                int to = query.createdUntil == null ? sortedTimestamps.length : lowerBound(sortedTimestamps, query.createdUntil);
+                matches = intersect(matches, timestampOrdinals, from, to);
+            }
+
+            int start = 0;
+            if (afterId != null && !afterId.isEmpty()) {
+                int found = Arrays.binarySearch(ids, afterId);
+                start = found >= 0 ? found + 1 : -found - 1;
+            }
+            return new Scan(ids, matches, start);
+        }
+
+        private BitSet intersect(BitSet matches, int[] ordinals, int from, int to) {
+            BitSet range = new BitSet(ids.length);
+            for (int i = from; i < to; i++) {
+                range.set(ordinals[i]);
+            }
+            if (matches == null) return range;
+            matches.and(range);
+            return matches;
+        }
+
+        /** First index whose value is {@code >= key}. */
+        private static int lowerBound(double[] values, double key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < key) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        private static int lowerBound(long[] values, long key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < key) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}
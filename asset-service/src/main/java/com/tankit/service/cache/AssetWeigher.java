@@ -0,0 +1,55 @@
+package com.tankit.service.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.tankit.service.model.AssetDictionary;
+import com.tankit.service.model.CompactAsset;
+
+/**
+ * Estimates the retained heap size of a cached asset, in bytes.
+ *
+ * Assumes a 64-bit JVM with compressed oops and compact (Latin-1) strings. Dictionary
+ * values are shared across all entries and are therefore not charged to any of them.
+ */
+public class AssetWeigher implements Weigher<String, CompactAsset> {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final int ARRAY_HEADER = 16;
+    private static final int STRING_SHALLOW = 24;
+
+    // Caffeine node plus hash table slot overhead per entry
+    private static final int ENTRY_OVERHEAD = 64;
+
+    // 8 references, the exchange code byte, and the timestamp, market value and version longs
+    private static final int ASSET_SHALLOW = align(OBJECT_HEADER + 8 * REFERENCE + 1 + 8 + 8 + 8);
+
+    @Override
+    public int weigh(String key, CompactAsset asset) {
+        int weight = ENTRY_OVERHEAD + ASSET_SHALLOW + stringSize(key);
+        // The asset ID is usually the same instance as the key
+        if (asset.getAssetId() != key) {
+            weight += stringSize(asset.getAssetId());
+        }
+        weight += stringSize(asset.getName());
+        weight += stringSize(asset.getCusip());
+        weight += stringSize(asset.getBloombergId());
+        weight += stringSize(asset.getIsin());
+        weight += stringSize(asset.getSedol());
+        if (AssetDictionary.descriptionCode(asset.getDescription()) == AssetDictionary.UNKNOWN) {
+            weight += stringSize(asset.getDescription());
+        }
+        if (AssetDictionary.currencyCode(asset.getCurrency()) == AssetDictionary.UNKNOWN) {
+            weight += stringSize(asset.getCurrency());
+        }
+        return weight;
+    }
+
+    static int stringSize(String s) {
+        if (s == null) return 0;
+        return STRING_SHALLOW + align(ARRAY_HEADER + s.length());
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+}
@@ -0,0 +1,211 @@
+package com.tankit.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.tankit.service.model.CompactAsset;
+import com.tankit.service.repository.AssetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Warms the L1 with this instance's partition and tracks startup readiness.
+ *
+ * IDs this instance recorded as hot before its restart are taken first, hottest first;
+ * the rest of the partition is picked up while streaming the ID set. Owned IDs are cut
+ * into chunks that are fetched in parallel with batch reads. Warming only fills absent
+ * entries, so a write that reached L1 while the instance was already serving is kept.
+ *
+ * The instance reports ready once the L1 actually holds {@code app.warmup.ready-fraction}
+ * of the warm-up target (capped at the cache's entry bound, or of its byte budget for a
+ * weight-bound cache), or once warm-up has finished, whichever comes first. Counting
+ * entries rather than inserts keeps evicted entries from counting towards readiness.
+ */
+@Component
+public class CacheWarmer implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+
+    public enum State { STARTING, WARMING, READY }
+
+    @Value("${app.warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.warmup.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.warmup.ready-fraction:0.8}")
+    private double readyFraction;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private Cache<String, CompactAsset> assetCache;
+
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+
+    private final AtomicInteger warmed = new AtomicInteger();
+    // Owned assets that a read-through or write had already put in L1 before warm-up got to them
+    private final AtomicInteger alreadyCached = new AtomicInteger();
+    private volatile State state = State.STARTING;
+    private volatile int target;
+
+    /**
+     * Fill the L1 with up to {@code count} owned assets, returning once every chunk is in
+     */
+    public void warm(PartitionOwnership ownership, int count) {
+        logger.info("Populating cache partition for instance {} with {} assets...", ownership.getInstanceIndex(), count);
+        long start = System.currentTimeMillis();
+        target = count;
+        state = State.WARMING;
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "cache-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bound the chunks in flight, so the ID scan does not run far ahead of the fetches
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        try {
+            Set<String> selected = new HashSet<>(count * 2);
+            List<String> chunk = new ArrayList<>(chunkSize);
+
+            for (String hotId : hotKeyTracker.loadPersistedHotIds(count)) {
+                if (ownership.owns(hotId) && selected.add(hotId)) {
+                    chunk = addToChunk(chunk, hotId, executor, inFlight);
+                }
+            }
+            int hotCount = selected.size();
+
+            try (Stream<String> assetIds = assetRepository.scanAssetIds()) {
+                Iterator<String> it = assetIds.iterator();
+                while (selected.size() < count && it.hasNext()) {
+                    String assetId = it.next();
+                    if (ownership.owns(assetId) && selected.add(assetId)) {
+                        chunk = addToChunk(chunk, assetId, executor, inFlight);
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(chunk, executor, inFlight);
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+            logger.info("Instance {} cache populated with {} assets ({} hot first, {} already cached) in {} ms. Cache size: {}",
+                    ownership.getInstanceIndex(), warmed.get(), hotCount, alreadyCached.get(),
+                    System.currentTimeMillis() - start, assetCache.estimatedSize());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Cache warm-up interrupted after {} assets", warmed.get());
+        } catch (Exception e) {
+            logger.error("Error populating cache for instance " + ownership.getInstanceIndex(), e);
+        } finally {
+            executor.shutdownNow();
+            // Whatever was not warmed is read through from the repository on demand
+            state = State.READY;
+        }
+    }
+
+    /**
+     * Mark the instance ready without warming, when there is nothing to warm
+     */
+    public void skip() {
+        state = State.READY;
+    }
+
+    /**
+     * Whether the instance should take traffic: warm-up finished or reached the ready fraction
+     */
+    public boolean isReady() {
+        State current = state;
+        return current == State.READY || (current == State.WARMING && warmEnough());
+    }
+
+    private boolean warmEnough() {
+        long wanted = target;
+        Optional<Policy.Eviction<String, CompactAsset>> eviction = assetCache.policy().eviction();
+        if (eviction.isPresent()) {
+            Policy.Eviction<String, CompactAsset> bound = eviction.get();
+            if (bound.isWeighted()) {
+                OptionalLong weight = bound.weightedSize();
+                if (weight.isPresent() && weight.getAsLong() >= bound.getMaximum() * readyFraction) {
+                    return true;
+                }
+            } else {
+                wanted = Math.min(wanted, bound.getMaximum());
+            }
+        }
+        return assetCache.estimatedSize() >= (long) Math.ceil(wanted * readyFraction);
+    }
+
+    public State getState() { return state; }
+
+    public int getWarmedCount() { return warmed.get(); }
+
+    public int getAlreadyCachedCount() { return alreadyCached.get(); }
+
+    public int getTarget() { return target; }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = isReady() ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("state", state)
+                .withDetail("warmed", warmed.get())
+                .withDetail("alreadyCached", alreadyCached.get())
+                .withDetail("cached", assetCache.estimatedSize())
+                .withDetail("target", target)
+                .withDetail("readyFraction", readyFraction)
+                .build();
+    }
+
+    private List<String> addToChunk(List<String> chunk, String assetId, ExecutorService executor,
+                                    Semaphore inFlight) throws InterruptedException {
+        chunk.add(assetId);
+        if (chunk.size() < chunkSize) {
+            return chunk;
+        }
+        submit(chunk, executor, inFlight);
+        return new ArrayList<>(chunkSize);
+    }
+
+    private void submit(List<String> chunk, ExecutorService executor, Semaphore inFlight) throws InterruptedException {
+        inFlight.acquire();
+        executor.execute(() -> {
+            try {
+                for (CompactAsset asset : assetRepository.findAssetsByIds(chunk)) {
+                    if (assetCache.asMap().putIfAbsent(asset.getAssetId(), asset) == null) {
+                        warmed.incrementAndGet();
+                    } else {
+                        alreadyCached.incrementAndGet();
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to warm a chunk of {} assets", chunk.size(), e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.tankit.service.cache;
+
+import com.tankit.service.repository.AssetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records per-instance asset access frequency from GetAssets traffic and persists the
+ * hottest IDs to Redis, so that a restarted instance can warm its L1 hottest-first.
+ *
+ * The sketch counts one persist interval at a time; Redis keeps the running totals,
+ * decayed on every persist so that old traffic gradually stops dominating.
+ */
+@Component
+public class HotKeyTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotKeyTracker.class);
+
+    @Value("${cache.hot-keys.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.hot-keys.sketch-width:65536}")
+    private int sketchWidth;
+
+    @Value("${cache.hot-keys.top-k:20000}")
+    private int topK;
+
+    @Value("${app.instance-index}")
+    private int instanceIdx;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    private volatile AccessFrequencySketch sketch;
+
+    @PostConstruct
+    public void init() {
+        sketch = new AccessFrequencySketch(sketchWidth, topK);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persist();
+    }
+
+    /**
+     * Record an access to the given asset
+     */
+    public void record(String assetId) {
+        if (enabled) {
+            sketch.record(assetId);
+        }
+    }
+
+    /**
+     * Fold this interval's heavy hitters into the persisted totals and start a new interval
+     */
+    @Scheduled(fixedDelayString = "${cache.hot-keys.persist-interval-ms:60000}",
+            initialDelayString = "${cache.hot-keys.persist-interval-ms:60000}")
+    public void persist() {
+        if (!enabled) {
+            return;
+        }
+        // Swap in a fresh sketch before reading the old one, so hits recorded while this
+        // interval is being saved count towards the next one instead of being cleared
+        AccessFrequencySketch interval = sketch;
+        sketch = new AccessFrequencySketch(sketchWidth, topK);
+        try {
+            List<Map.Entry<String, Integer>> hottest = interval.hottest();
+            if (hottest.isEmpty()) {
+                return;
+            }
+            assetRepository.saveHotAssetIds(instanceIdx, hottest, topK);
+            logger.info("Persisted {} hot asset IDs for instance {}", hottest.size(), instanceIdx);
+        } catch (Exception e) {
+            logger.warn("Failed to persist hot asset IDs", e);
+        }
+    }
+
+    /**
+     * Hot IDs recorded by this instance before its last restart, hottest first
+     */
+    public List<String> loadPersistedHotIds(int limit) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        try {
+            return assetRepository.findHotAssetIds(instanceIdx, limit);
+        } catch (Exception e) {
+            logger.warn("Failed to load hot asset IDs", e);
+            return Collections.emptyList();
+        }
+    }
+}
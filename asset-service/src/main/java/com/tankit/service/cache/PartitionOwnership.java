@@ -0,0 +1,55 @@
+package com.tankit.service.cache;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hash-based assignment of asset IDs to service instances.
+ *
+ * An ID belongs to instance {@code fnv1a32(utf8(assetId)) mod totalInstances}. Ownership
+ * can be decided one ID at a time, so an instance can pick out its partition while
+ * streaming the key space instead of sorting the full ID list.
+ */
+public class PartitionOwnership {
+
+    private static final int FNV_OFFSET_BASIS = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final int instanceIndex;
+    private final int totalInstances;
+
+    public PartitionOwnership(int instanceIndex, int totalInstances) {
+        if (totalInstances <= 0 || instanceIndex < 0 || instanceIndex >= totalInstances) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid partition: instance %d of %d", instanceIndex, totalInstances));
+        }
+        this.instanceIndex = instanceIndex;
+        this.totalInstances = totalInstances;
+    }
+
+    public int getInstanceIndex() { return instanceIndex; }
+
+    public int getTotalInstances() { return totalInstances; }
+
+    /**
+     * Whether this instance owns the given asset
+     */
+    public boolean owns(String assetId) {
+        return ownerOf(assetId, totalInstances) == instanceIndex;
+    }
+
+    /**
+     * Owning instance of an asset for a cluster of {@code totalInstances}
+     */
+    public static int ownerOf(String assetId, int totalInstances) {
+        return Integer.remainderUnsigned(hash(assetId), totalInstances);
+    }
+
+    static int hash(String assetId) {
+        int hash = FNV_OFFSET_BASIS;
+        for (byte b : assetId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
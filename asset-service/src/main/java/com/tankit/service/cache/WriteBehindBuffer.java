@@ -0,0 +1,300 @@
+package com.tankit.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.tankit.service.model.CompactAsset;
+import com.tankit.service.repository.AssetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded write-behind buffer for market value updates.
+ *
+ * An update is applied to the L1 cache straight away and parked in a pending map keyed
+ * by asset ID, so repeated ticks to the same asset collapse into the latest one. The map
+ * is drained on a fixed delay and written to Redis in pipelined batches. Callers should
+ * wait for {@link #whenCapacity} before offering more once the buffer is full.
+ *
+ * Each update gets a fresh version from a block reserved in Redis, so readers can tell
+ * it apart before it is flushed; a failed batch is re-queued unless newer updates for
+ * the same assets are already pending. Blocks are refilled outside the buffer's monitor,
+ * so the Redis round trip never holds up {@link #isPending} or other updates.
+ */
+@Component
+public class WriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    /** What became of an offered update */
+    public enum UpdateResult {
+        /** Queued for Redis */
+        ACCEPTED,
+        /** Queued for Redis, replacing an update to the same asset that had not been flushed yet */
+        COALESCED,
+        /** Dropped: the asset does not exist */
+        UNKNOWN
+    }
+
+    @Value("${cache.write-behind.max-pending:50000}")
+    private int maxPending;
+
+    @Value("${cache.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cache.write-behind.version-block:1000}")
+    private int versionBlock;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private Cache<String, CompactAsset> assetCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Object flushLock = new Object();
+    private Map<String, CompactAsset> pending = new HashMap<>();
+    private List<Runnable> capacityWaiters = new ArrayList<>();
+    private long oldestPendingNanos;
+    private final Object versionLock = new Object();
+    private volatile VersionBlock versions = new VersionBlock(1, 0);
+
+    private Counter accepted;
+    private Counter unknown;
+    private Counter coalesced;
+    private Counter flushed;
+    private Counter flushFailures;
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("asset.write-behind.pending", this, WriteBehindBuffer::pendingCount)
+                .description("Updates applied to L1 but not yet written to Redis")
+                .register(meterRegistry);
+        Gauge.builder("asset.write-behind.oldest.age", this, WriteBehindBuffer::oldestPendingSeconds)
+                .description("Seconds the oldest unflushed update has been waiting")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        accepted = Counter.builder("asset.write-behind.updates").tag("result", "accepted")
+                .description("Updates offered to the write-behind buffer").register(meterRegistry);
+        unknown = Counter.builder("asset.write-behind.updates").tag("result", "unknown")
+                .description("Updates offered to the write-behind buffer").register(meterRegistry);
+        coalesced = Counter.builder("asset.write-behind.coalesced")
+                .description("Updates superseded before they were flushed").register(meterRegistry);
+        flushed = Counter.builder("asset.write-behind.flushed")
+                .description("Assets written to Redis by the write-behind buffer").register(meterRegistry);
+        flushFailures = Counter.builder("asset.write-behind.flush.failures")
+                .description("Write-behind batches that failed and were re-queued").register(meterRegistry);
+        flushTimer = Timer.builder("asset.write-behind.flush")
+                .description("Time to write one write-behind batch to Redis").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Apply a market value update to L1 and queue it for Redis
+     */
+    public UpdateResult update(String assetId, double marketValue) {
+        return update(Collections.singletonList(assetId), new double[] {marketValue})[0];
+    }
+
+    /**
+     * Apply a frame of market value updates to L1 and queue them for Redis, in order. Assets
+     * neither pending nor in L1 are read from the repository in one batch for the frame.
+     *
+     * @return the result of each update
+     */
+    public UpdateResult[] update(List<String> assetIds, double[] marketValues) {
+        int n = assetIds.size();
+        CompactAsset[] bases = new CompactAsset[n];
+        synchronized (this) {
+            for (int i = 0; i < n; i++) {
+                bases[i] = pending.get(assetIds.get(i));
+            }
+        }
+        Set<String> misses = null;
+        for (int i = 0; i < n; i++) {
+            if (bases[i] == null && (bases[i] = assetCache.getIfPresent(assetIds.get(i))) == null) {
+                if (misses == null) misses = new LinkedHashSet<>();
+                misses.add(assetIds.get(i));
+            }
+        }
+        if (misses != null) {
+            Map<String, CompactAsset> fetched = new HashMap<>(misses.size() * 2);
+            for (CompactAsset asset : assetRepository.findAssetsByIds(new ArrayList<>(misses))) {
+                fetched.put(asset.getAssetId(), asset);
+            }
+            for (int i = 0; i < n; i++) {
+                if (bases[i] == null) bases[i] = fetched.get(assetIds.get(i));
+            }
+        }
+        long[] versions = new long[n];
+        for (int i = 0; i < n; i++) {
+            if (bases[i] != null) versions[i] = nextVersion();
+        }
+
+        UpdateResult[] results = new UpdateResult[n];
+        int applied = 0;
+        int superseded = 0;
+        synchronized (this) {
+            for (int i = 0; i < n; i++) {
+                if (bases[i] == null) {
+                    results[i] = UpdateResult.UNKNOWN;
+                    continue;
+                }
+                String assetId = assetIds.get(i);
+                // Re-read under the lock so concurrent updates to one asset build on each other
+                CompactAsset current = pending.getOrDefault(assetId, bases[i]);
+                CompactAsset updated = current.withMarketValue(marketValues[i], versions[i]);
+                assetCache.put(assetId, updated);
+                if (pending.isEmpty()) {
+                    oldestPendingNanos = System.nanoTime();
+                }
+                applied++;
+                if (pending.put(assetId, updated) != null) {
+                    superseded++;
+                    results[i] = UpdateResult.COALESCED;
+                } else {
+                    results[i] = UpdateResult.ACCEPTED;
+                }
+            }
+        }
+        accepted.increment(applied);
+        coalesced.increment(superseded);
+        unknown.increment(n - applied);
+        return results;
+    }
+
+    /**
+     * Whether an update to the asset is waiting to be flushed
+     */
+    public synchronized boolean isPending(String assetId) {
+        return pending.containsKey(assetId);
+    }
+
+    /**
+     * Run {@code callback} as soon as the buffer has room: immediately if it has, otherwise
+     * after the next flush drains it.
+     */
+    public void whenCapacity(Runnable callback) {
+        synchronized (this) {
+            if (pending.size() >= maxPending) {
+                capacityWaiters.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * Write every pending update to Redis in pipelined batches
+     */
+    @Scheduled(fixedDelayString = "${cache.write-behind.flush-interval-ms:100}")
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, CompactAsset> drained;
+            List<Runnable> waiters;
+            synchronized (this) {
+                if (pending.isEmpty()) return;
+                drained = pending;
+                pending = new HashMap<>();
+                waiters = capacityWaiters;
+                capacityWaiters = new ArrayList<>();
+            }
+            waiters.forEach(Runnable::run);
+
+            List<CompactAsset> batch = new ArrayList<>(Math.min(batchSize, drained.size()));
+            for (CompactAsset asset : drained.values()) {
+                batch.add(asset);
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<CompactAsset> batch) {
+        if (batch.isEmpty()) return;
+        long start = System.nanoTime();
+        try {
+            assetRepository.writeAssets(batch);
+            flushed.increment(batch.size());
+        } catch (Exception e) {
+            flushFailures.increment();
+            logger.warn("Write-behind flush of {} assets failed, re-queueing", batch.size(), e);
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    oldestPendingNanos = System.nanoTime();
+                }
+                for (CompactAsset asset : batch) {
+                    pending.putIfAbsent(asset.getAssetId(), asset);
+                }
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Take the next version of the reserved block; only the thread that finds the block
+     * used up reserves a new one, while the others wait on the refill
+     */
+    private long nextVersion() {
+        while (true) {
+            VersionBlock block = versions;
+            long version = block.next.getAndIncrement();
+            if (version <= block.last) {
+                return version;
+            }
+            synchronized (versionLock) {
+                if (versions == block) {
+                    long last = assetRepository.reserveVersions(versionBlock);
+                    versions = new VersionBlock(last - versionBlock + 1, last);
+                }
+            }
+        }
+    }
+
+    private synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private synchronized double oldestPendingSeconds() {
+        return pending.isEmpty() ? 0 : (System.nanoTime() - oldestPendingNanos) / 1e9;
+    }
+
+    private static final class VersionBlock {
+        final AtomicLong next;
+        final long last;
+
+        VersionBlock(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
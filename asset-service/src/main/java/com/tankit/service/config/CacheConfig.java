@@ -2,7 +2,8 @@ package com.tankit.service.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.Cache;
-import com.tankit.service.model.Asset;
+import com.tankit.service.cache.AssetWeigher;
+import com.tankit.service.model.CompactAsset;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -22,6 +23,9 @@ public class CacheConfig {
     @Value("${cache.asset.max-size:30000}")
     private int maxCacheSize;
 
+    @Value("${cache.asset.max-weight-mb:64}")
+    private long maxWeightMb;
+
     @Value("${cache.asset.expire-after-access-minutes:30}")
     private int expireAfterAccessMinutes;
 
@@ -29,12 +33,18 @@ public class CacheConfig {
     private int expireAfterWriteMinutes;
 
     /**
-     * Configure Caffeine cache for assets
+     * Configure Caffeine cache for assets, bounded by estimated bytes
+     * (cache.asset.max-weight-mb) or, when that is 0, by entry count (cache.asset.max-size)
      */
     @Bean
-    public Cache<String, Asset> assetCache() {
-        return Caffeine.newBuilder()
-                .maximumSize(maxCacheSize)
+    public Cache<String, CompactAsset> assetCache() {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        if (maxWeightMb > 0) {
+            builder.maximumWeight(maxWeightMb * 1024 * 1024).weigher(new AssetWeigher());
+        } else {
+            builder.maximumSize(maxCacheSize);
+        }
+        return builder
                 .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
                 .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
                 .recordStats() // Enable statistics for monitoring
@@ -1,173 +1,237 @@
 package com.tankit.service.data;
 
 import com.tankit.service.model.Asset;
+import com.tankit.service.model.AssetDictionary;
 import org.springframework.stereotype.Component;
 
-import java.security.SecureRandom;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
- * Generates mock asset data for the prototype
+ * Generates mock asset data for the prototype.
+ *
+ * The ID range is cut into fixed-size blocks and each block draws from its own
+ * {@link SplittableRandom} seeded from the dataset seed and the block number, so blocks
+ * can be generated on any fork-join worker in any order and a given seed always yields
+ * the same dataset. CUSIPs, ISINs and SEDOLs carry valid check digits.
  */
 @Component
 public class AssetDataGenerator {
 
-    private static final String[] ASSET_TYPES = {"EQUITY", "BOND", "COMMODITY", "CURRENCY", "DERIVATIVE"};
+    /** Assets per generated block; also the natural bulk-load batch size. */
+    public static final int BLOCK_SIZE = 4096;
+
+    private static final String[] ASSET_TYPES = AssetDictionary.ASSET_TYPES;
     private static final String[] COMPANIES = {
         "Apple Inc", "Microsoft Corp", "Amazon.com Inc", "Alphabet Inc", "Tesla Inc",
         "Meta Platforms Inc", "NVIDIA Corp", "Berkshire Hathaway", "Johnson & Johnson", "JPMorgan Chase",
         "Visa Inc", "Walmart Inc", "Procter & Gamble", "UnitedHealth Group", "Mastercard Inc",
         "Home Depot Inc", "Bank of America", "Pfizer Inc", "Coca-Cola Co", "Intel Corp"
     };
-    
-    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY", "CAD", "AUD", "CHF"};
-    
-    private final SecureRandom random = new SecureRandom();
+
+    private static final String[] CURRENCIES = AssetDictionary.CURRENCIES;
+    private static final String[] COUNTRIES = {"US", "GB", "DE", "FR", "JP", "CA"};
+
+    private static final char[] ALPHANUMERIC = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+    // SEDOLs never contain vowels
+    private static final char[] SEDOL_CHARS = "0123456789BCDFGHJKLMNPQRSTVWXYZ".toCharArray();
+    private static final int[] SEDOL_WEIGHTS = {1, 3, 1, 7, 3, 9};
+
+    private static final String ID_PREFIX = "ASSET_";
+    private static final int ID_DIGITS = 6;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // Fixed reference point for created timestamps (2024-01-01T00:00:00Z), so a seed yields
+    // the same dataset whenever and wherever it is generated
+    private static final long REFERENCE_MILLIS = 1_704_067_200_000L;
 
     /**
-     * Generate a list of mock assets
+     * Generate a list of mock assets from a random seed
      */
     public List<Asset> generateAssets(int count) {
-        List<Asset> assets = new ArrayList<>(count);
-        
-        for (int i = 1; i <= count; i++) {
+        return generateAssets(count, ThreadLocalRandom.current().nextLong()).collect(Collectors.toList());
+    }
+
+    /**
+     * Lazily generate {@code count} assets (IDs 1..count) from {@code seed}; the stream is
+     * parallel. Created timestamps fall within the year before 2024-01-01.
+     */
+    public Stream<Asset> generateAssets(int count, long seed) {
+        return generateBlocks(count, seed).flatMap(List::stream);
+    }
+
+    /**
+     * Lazily generate {@code count} assets as a parallel stream of blocks of up to
+     * {@link #BLOCK_SIZE}, ready to hand to a bulk loader one block at a time
+     */
+    public Stream<List<Asset>> generateBlocks(int count, long seed) {
+        int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        return IntStream.range(0, blocks)
+                .parallel()
+                .mapToObj(block -> generateBlock(block, count, seed));
+    }
+
+    private List<Asset> generateBlock(int block, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(mix(seed + block * GOLDEN_GAMMA));
+        int first = block * BLOCK_SIZE + 1;
+        int last = Math.min(count, first + BLOCK_SIZE - 1);
+        List<Asset> assets = new ArrayList<>(last - first + 1);
+        StringBuilder buffer = new StringBuilder(16);
+
+        for (int i = first; i <= last; i++) {
             Asset asset = new Asset();
-            asset.setAssetId(String.format("ASSET_%06d", i));
-            asset.setName(generateAssetName());
-            asset.setDescription(generateDescription());
-            asset.setCusip(generateCusip());
-            asset.setBloombergId(generateBloombergId());
-            asset.setIsin(generateIsin());
-            asset.setSedol(generateSedol());
-            asset.setCreatedTimestamp(generateRandomTimestamp());
-            asset.setMarketValue(generateMarketValue());
-            asset.setCurrency(getRandomCurrency());
-            
+            asset.setAssetId(assetId(buffer, i));
+            asset.setName(generateAssetName(random));
+            asset.setDescription(generateDescription(random));
+            String cusip = generateCusip(random, buffer);
+            asset.setCusip(cusip);
+            asset.setBloombergId(generateBloombergId(random, buffer));
+            String sedol = generateSedol(random, buffer);
+            asset.setIsin(generateIsin(random, buffer, cusip, sedol));
+            asset.setSedol(sedol);
+            asset.setCreatedTimestamp(Instant.ofEpochMilli(REFERENCE_MILLIS - random.nextLong(365 * DAY_MILLIS)));
+            asset.setMarketValue(generateMarketValue(random));
+            asset.setCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+
             assets.add(asset);
         }
-        
+
         return assets;
     }
 
-    private String generateAssetName() {
+    /** ASSET_ followed by the number zero-padded to at least six digits. */
+    private static String assetId(StringBuilder buffer, int number) {
+        buffer.setLength(0);
+        buffer.append(ID_PREFIX);
+        for (int width = Integer.toString(number).length(); width < ID_DIGITS; width++) {
+            buffer.append('0');
+        }
+        return buffer.append(number).toString();
+    }
+
+    private String generateAssetName(SplittableRandom random) {
         String company = COMPANIES[random.nextInt(COMPANIES.length)];
         String type = ASSET_TYPES[random.nextInt(ASSET_TYPES.length)];
         return company + " " + type;
     }
 
-    private String generateDescription() {
-        return "Financial instrument representing " + 
-               ASSET_TYPES[random.nextInt(ASSET_TYPES.length)].toLowerCase() + 
-               " security";
+    private String generateDescription(SplittableRandom random) {
+        return AssetDictionary.description((byte) random.nextInt(ASSET_TYPES.length));
     }
 
     /**
      * Generate CUSIP (Committee on Uniform Securities Identification Procedures)
-     * Format: 9 characters (8 alphanumeric + 1 check digit)
+     * Format: 6 issuer + 2 issue characters + 1 check digit (modulus 10 double-add-double)
      */
-    private String generateCusip() {
-        StringBuilder cusip = new StringBuilder();
-        
-        // First 6 characters: issuer identifier
-        for (int i = 0; i < 6; i++) {
-            cusip.append(getRandomAlphanumeric());
-        }
-        
-        // Next 2 characters: issue identifier
-        for (int i = 0; i < 2; i++) {
-            cusip.append(getRandomAlphanumeric());
-        }
-        
-        // Check digit (simplified - normally calculated)
-        cusip.append(random.nextInt(10));
-        
-        return cusip.toString();
+    private String generateCusip(SplittableRandom random, StringBuilder buffer) {
+        buffer.setLength(0);
+        appendRandom(random, buffer, ALPHANUMERIC, 8);
+        return buffer.append(cusipCheckDigit(buffer)).toString();
     }
 
     /**
      * Generate Bloomberg ID
      * Format: Ticker + Exchange code
      */
-    private String generateBloombergId() {
-        String ticker = generateTicker();
-        String[] exchanges = {"US", "LN", "JP", "GR", "FP"};
-        String exchange = exchanges[random.nextInt(exchanges.length)];
-        return ticker + " " + exchange + " Equity";
-    }
-
-    private String generateTicker() {
-        StringBuilder ticker = new StringBuilder();
+    private String generateBloombergId(SplittableRandom random, StringBuilder buffer) {
+        buffer.setLength(0);
         int length = 2 + random.nextInt(4); // 2-5 characters
-        
         for (int i = 0; i < length; i++) {
-            ticker.append((char) ('A' + random.nextInt(26)));
+            buffer.append((char) ('A' + random.nextInt(26)));
         }
-        
-        return ticker.toString();
+        byte exchange = (byte) random.nextInt(AssetDictionary.EXCHANGES.length);
+        return AssetDictionary.bloombergId(buffer.toString(), exchange);
     }
 
     /**
      * Generate ISIN (International Securities Identification Number)
-     * Format: 2-letter country code + 9 alphanumeric + 1 check digit
+     * Format: 2-letter country code + 9 character national ID + 1 Luhn check digit.
+     * US ISINs embed the CUSIP and GB ISINs embed "00" + SEDOL, as real ones do.
      */
-    private String generateIsin() {
-        StringBuilder isin = new StringBuilder();
-        
-        // Country code
-        String[] countries = {"US", "GB", "DE", "FR", "JP", "CA"};
-        isin.append(countries[random.nextInt(countries.length)]);
-        
-        // 9 alphanumeric characters
-        for (int i = 0; i < 9; i++) {
-            isin.append(getRandomAlphanumeric());
+    private String generateIsin(SplittableRandom random, StringBuilder buffer, String cusip, String sedol) {
+        String country = COUNTRIES[random.nextInt(COUNTRIES.length)];
+        buffer.setLength(0);
+        buffer.append(country);
+        if (country.equals("US")) {
+            buffer.append(cusip);
+        } else if (country.equals("GB")) {
+            buffer.append("00").append(sedol);
+        } else {
+            appendRandom(random, buffer, ALPHANUMERIC, 9);
         }
-        
-        // Check digit (simplified)
-        isin.append(random.nextInt(10));
-        
-        return isin.toString();
+        return buffer.append(isinCheckDigit(buffer)).toString();
     }
 
     /**
      * Generate SEDOL (Stock Exchange Daily Official List)
-     * Format: 6 alphanumeric characters + 1 check digit
+     * Format: 6 characters without vowels + 1 weighted check digit
      */
-    private String generateSedol() {
-        StringBuilder sedol = new StringBuilder();
-        
-        // 6 alphanumeric characters
-        for (int i = 0; i < 6; i++) {
-            sedol.append(getRandomAlphanumeric());
+    private String generateSedol(SplittableRandom random, StringBuilder buffer) {
+        buffer.setLength(0);
+        appendRandom(random, buffer, SEDOL_CHARS, 6);
+        return buffer.append(sedolCheckDigit(buffer)).toString();
+    }
+
+    private Double generateMarketValue(SplittableRandom random) {
+        // Random market value between $1 and $10,000
+        return 1.0 + (random.nextDouble() * 9999.0);
+    }
+
+    private static void appendRandom(SplittableRandom random, StringBuilder buffer, char[] alphabet, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.append(alphabet[random.nextInt(alphabet.length)]);
         }
-        
-        // Check digit (simplified)
-        sedol.append(random.nextInt(10));
-        
-        return sedol.toString();
     }
 
-    private char getRandomAlphanumeric() {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        return chars.charAt(random.nextInt(chars.length()));
+    static int cusipCheckDigit(CharSequence base) {
+        int sum = 0;
+        for (int i = 0; i < 8; i++) {
+            int value = Character.digit(base.charAt(i), 36);
+            if ((i & 1) == 1) value *= 2;
+            sum += value / 10 + value % 10;
+        }
+        return (10 - sum % 10) % 10;
     }
 
-    private Instant generateRandomTimestamp() {
-        // Random timestamp within the last year
-        Instant now = Instant.now();
-        long randomDays = ThreadLocalRandom.current().nextLong(0, 365);
-        return now.minus(randomDays, ChronoUnit.DAYS);
+    static int isinCheckDigit(CharSequence base) {
+        // Letters expand to two digits (A=10 .. Z=35); Luhn doubles every other digit from the right
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = base.length() - 1; i >= 0; i--) {
+            int value = Character.digit(base.charAt(i), 36);
+            int digits = value > 9 ? 2 : 1;
+            for (int d = 0; d < digits; d++) {
+                int digit = value % 10;
+                value /= 10;
+                if (doubled) {
+                    digit *= 2;
+                    if (digit > 9) digit -= 9;
+                }
+                sum += digit;
+                doubled = !doubled;
+            }
+        }
+        return (10 - sum % 10) % 10;
     }
 
-    private Double generateMarketValue() {
-        // Random market value between $1 and $10,000
-        return 1.0 + (random.nextDouble() * 9999.0);
+    static int sedolCheckDigit(CharSequence base) {
+        int sum = 0;
+        for (int i = 0; i < 6; i++) {
+            sum += Character.digit(base.charAt(i), 36) * SEDOL_WEIGHTS[i];
+        }
+        return (10 - sum % 10) % 10;
     }
 
-    private String getRandomCurrency() {
-        return CURRENCIES[random.nextInt(CURRENCIES.length)];
+    /** SplitMix64 finalizer, so neighbouring blocks get unrelated seeds. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
-}
\ No newline at end of file
+}
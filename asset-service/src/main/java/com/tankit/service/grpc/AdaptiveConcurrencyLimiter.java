@@ -0,0 +1,174 @@
+package com.tankit.service.grpc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency-driven concurrency limit for GetAssets (gradient algorithm with AIMD backoff).
+ *
+ * Latency is measured per requested asset so that batch size does not skew it. The
+ * limit follows {@code limit * (minLatency / latency) + sqrt(limit)}: while latency
+ * stays at its no-load floor the limit keeps growing, and once requests start queueing
+ * behind Redis the gradient pulls it back. Failed calls cut the limit multiplicatively.
+ * Cheap and miss-heavy calls each have their own floor, since an L1 hit is far faster
+ * per asset than a Redis read even at no load.
+ *
+ * Cheap (mostly L1) requests may use extra headroom above the limit, so they keep
+ * being served while miss-heavy requests are shed.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    private static final double MIN_GRADIENT = 0.5;
+
+    @Value("${grpc.limiter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${grpc.limiter.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${grpc.limiter.min-limit:4}")
+    private int minLimit;
+
+    @Value("${grpc.limiter.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${grpc.limiter.priority-headroom:0.5}")
+    private double priorityHeadroom;
+
+    @Value("${grpc.limiter.min-latency-window:1000}")
+    private int minLatencyWindow;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private final LatencyFloor cheapFloor = new LatencyFloor();
+    private final LatencyFloor expensiveFloor = new LatencyFloor();
+    private Counter rejectedCheap;
+    private Counter rejectedExpensive;
+
+    @PostConstruct
+    public void init() {
+        limit = initialLimit;
+        Gauge.builder("asset.grpc.concurrency.limit", this, l -> l.limit)
+                .description("Current adaptive concurrency limit for GetAssets")
+                .register(meterRegistry);
+        Gauge.builder("asset.grpc.concurrency.inflight", inFlight, AtomicInteger::get)
+                .description("GetAssets calls currently executing")
+                .register(meterRegistry);
+        rejectedCheap = Counter.builder("asset.grpc.rejected")
+                .tag("class", "cheap")
+                .description("GetAssets calls rejected with RESOURCE_EXHAUSTED")
+                .register(meterRegistry);
+        rejectedExpensive = Counter.builder("asset.grpc.rejected")
+                .tag("class", "expensive")
+                .description("GetAssets calls rejected with RESOURCE_EXHAUSTED")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Try to admit a call.
+     *
+     * @param cheap whether the call is expected to be served (mostly) from L1
+     * @return true if admitted; the caller must then call {@link #release} exactly once
+     */
+    public boolean tryAcquire(boolean cheap) {
+        if (!enabled) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        int allowed = (int) (cheap ? limit * (1 + priorityHeadroom) : limit);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                (cheap ? rejectedCheap : rejectedExpensive).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release an admitted call and feed its latency back into the limit
+     *
+     * @param elapsedNanos call duration
+     * @param items number of assets the call requested
+     * @param cheap the class the call was admitted as
+     * @param succeeded false if the call failed or timed out
+     */
+    public void release(long elapsedNanos, int items, boolean cheap, boolean succeeded) {
+        int inFlightAtRelease = inFlight.getAndDecrement();
+        if (enabled) {
+            update(elapsedNanos / (double) Math.max(1, items), cheap ? cheapFloor : expensiveFloor,
+                    inFlightAtRelease, succeeded);
+        }
+    }
+
+    /**
+     * Release an admitted call without feeding it back into the limit, for calls the caller
+     * cancelled before their deadline
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(double latencyNanos, LatencyFloor floor, int inFlightAtRelease,
+                                     boolean succeeded) {
+        if (!succeeded) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            return;
+        }
+        double minLatencyNanos = floor.record(latencyNanos);
+
+        // Do not grow the limit when it was not actually being used
+        if (inFlightAtRelease < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, minLatencyNanos / latencyNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * No-load latency of one call class: the minimum over a rolling window of samples.
+     * Guarded by the limiter's monitor.
+     */
+    private final class LatencyFloor {
+        private double minLatencyNanos = Double.MAX_VALUE;
+        private double nextMinLatencyNanos = Double.MAX_VALUE;
+        private int samples;
+
+        double record(double latencyNanos) {
+            nextMinLatencyNanos = Math.min(nextMinLatencyNanos, latencyNanos);
+            if (++samples >= minLatencyWindow) {
+                minLatencyNanos = nextMinLatencyNanos;
+                nextMinLatencyNanos = Double.MAX_VALUE;
+                samples = 0;
+            }
+            minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+            return minLatencyNanos;
+        }
+    }
+}
@@ -1,11 +1,36 @@
 package com.tankit.service.grpc;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.tankit.asset.proto.AssetInvalidation;
 import com.tankit.asset.proto.AssetRequest;
 import com.tankit.asset.proto.AssetResponse;
 import com.tankit.asset.proto.AssetServiceGrpc;
-import com.tankit.service.model.Asset;
-import com.tankit.service.repository.AssetRedisRepository;
+import com.tankit.asset.proto.AssetUpdate;
+import com.tankit.asset.proto.AssetUpdateBatch;
+import com.tankit.asset.proto.HealthCheckRequest;
+import com.tankit.asset.proto.HealthCheckResponse;
+import com.tankit.asset.proto.InvalidationRequest;
+import com.tankit.asset.proto.OwnershipMap;
+import com.tankit.asset.proto.OwnershipRequest;
+import com.tankit.asset.proto.ScanRequest;
+import com.tankit.asset.proto.ScanResponse;
+import com.tankit.asset.proto.TraceSummary;
+import com.tankit.asset.proto.UpdateSummary;
+import com.google.protobuf.ByteString;
+import com.tankit.service.cache.AssetScanIndex;
+import com.tankit.service.cache.CacheWarmer;
+import com.tankit.service.cache.HotKeyTracker;
+import com.tankit.service.cache.WriteBehindBuffer;
+import com.tankit.service.model.AssetDictionary;
+import com.tankit.service.model.CompactAsset;
+import com.tankit.service.repository.AssetRepository;
+import com.tankit.service.repository.RepositoryTimeoutException;
+import com.tankit.service.trace.RequestTrace;
+import com.tankit.service.trace.TraceRecorder;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.slf4j.Logger;
@@ -13,38 +38,205 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 @GrpcService
 public class AssetGrpcService extends AssetServiceGrpc.AssetServiceImplBase {
 
     private static final Logger logger = LoggerFactory.getLogger(AssetGrpcService.class);
+    private static final int MAX_SCAN_CHUNK = 10000;
+
+    // UTF-8 encodings of the dictionary values, shared by every converted asset
+    private static final ByteString[] CURRENCY_BYTES = new ByteString[AssetDictionary.CURRENCIES.length];
+    private static final ByteString[] DESCRIPTION_BYTES = new ByteString[AssetDictionary.ASSET_TYPES.length];
+
+    static {
+        for (byte i = 0; i < CURRENCY_BYTES.length; i++) {
+            CURRENCY_BYTES[i] = ByteString.copyFromUtf8(AssetDictionary.currency(i));
+        }
+        for (byte i = 0; i < DESCRIPTION_BYTES.length; i++) {
+            DESCRIPTION_BYTES[i] = ByteString.copyFromUtf8(AssetDictionary.description(i));
+        }
+    }
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private Cache<String, CompactAsset> assetCache;
+
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private AssetInvalidationBroadcaster invalidationBroadcaster;
+
+    @Autowired
+    private WriteBehindBuffer writeBehindBuffer;
 
     @Autowired
-    private AssetRedisRepository redisRepository;
+    private AssetScanIndex scanIndex;
 
     @Autowired
-    private Cache<String, Asset> assetCache;
+    private TraceRecorder traceRecorder;
+
+    @Autowired
+    private CacheWarmer cacheWarmer;
 
     @Value("${server.port:9090}")
     private String serverPort;
 
+    @Value("${grpc.limiter.cheap-miss-ratio:0.1}")
+    private double cheapMissRatio;
+
+    @Value("${spring.redis.timeout:2000ms}")
+    private Duration defaultRedisTimeout;
+
+    @Value("${grpc.deadline-reserve:5ms}")
+    private Duration deadlineReserve;
+
+    @Value("${grpc.scan.chunk-size:500}")
+    private int defaultScanChunk;
+
+    @Value("${app.instance-index}")
+    private int instanceIdx;
+
+    @Value("${app.total-instances}")
+    private int totalInstances;
+
+    @Value("${app.instance-addresses:}")
+    private List<String> instanceAddresses;
+
+    private enum StreamOutcome {
+        /** Every ID was looked up */
+        COMPLETE,
+        /** Redis timed out or the deadline budget ran out; unresolved IDs were reported or the call expired */
+        PARTIAL,
+        /** The caller cancelled before its deadline */
+        CANCELLED
+    }
+
     @Override
     public void getAssets(AssetRequest request, StreamObserver<AssetResponse> responseObserver) {
         logger.info("Received asset request for {} assets", request.getAssetIdsCount());
 
-        long startTime = System.currentTimeMillis();
-        List<Asset> foundAssets = new ArrayList<>();
         int totalRequested = request.getAssetIdsCount();
+        boolean cheap = isCheap(request);
+        if (!concurrencyLimiter.tryAcquire(cheap)) {
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED
+                    .withDescription("Server overloaded, concurrency limit " + concurrencyLimiter.getLimit())
+                    .asRuntimeException());
+            return;
+        }
+
+        long admittedAt = System.nanoTime();
+        StreamOutcome outcome = null;
+        RequestTrace trace = traceRecorder.start(request.getTrace());
+        try {
+            outcome = streamAssets(request, responseObserver, trace);
+        } finally {
+            if (outcome == StreamOutcome.CANCELLED) {
+                // The caller gave up before its deadline: says nothing about server load
+                concurrencyLimiter.release();
+            } else {
+                // Calls cut short by Redis timeouts or the deadline count as failures, so the
+                // limit backs off under overload
+                concurrencyLimiter.release(System.nanoTime() - admittedAt, totalRequested, cheap,
+                        outcome == StreamOutcome.COMPLETE);
+            }
+            if (trace != null) {
+                traceRecorder.finish(trace);
+            }
+        }
+    }
 
+    /**
+     * A request is cheap when at most cheapMissRatio of its IDs would miss the L1 cache.
+     * Uses containsKey so the probe neither counts towards cache stats nor refreshes recency.
+     */
+    private boolean isCheap(AssetRequest request) {
+        int allowedMisses = (int) (request.getAssetIdsCount() * cheapMissRatio);
+        int misses = 0;
         for (String assetId : request.getAssetIdsList()) {
-            Asset asset = assetCache.getIfPresent(assetId);
+            if (!assetCache.asMap().containsKey(assetId) && ++misses > allowedMisses) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stream the requested assets, honouring the caller's cancellation and deadline.
+     * A cancelled call stops immediately. Once the deadline budget (the time left minus
+     * {@code grpc.deadline-reserve}) is spent, the remaining IDs are not looked up at all:
+     * the completion frame is sent at once, listing them as unresolved, so it still
+     * reaches the caller before the deadline. Assets the caller already holds at the
+     * current version are not resent; they are flagged in the completion frame's
+     * unchanged bitmap instead.
+     *
+     * When {@code trace} is set, each phase is timed into it; a trace the client asked for
+     * is returned on the completion frame.
+     *
+     * @return how the call ended
+     */
+    private StreamOutcome streamAssets(AssetRequest request, StreamObserver<AssetResponse> responseObserver,
+                                 RequestTrace trace) {
+        long startTime = System.currentTimeMillis();
+        Context context = Context.current();
+        Deadline deadline = context.getDeadline();
+        int found = 0;
+        int totalRequested = request.getAssetIdsCount();
+        List<String> unresolved = new ArrayList<>();
+        int knownVersions = request.getKnownVersionsCount();
+        byte[] unchanged = null;
+
+        for (int i = 0; i < totalRequested; i++) {
+            String assetId = request.getAssetIds(i);
+            if (context.isCancelled()) {
+                Throwable cause = context.cancellationCause();
+                if (cause instanceof TimeoutException
+                        || Status.fromThrowable(cause).getCode() == Status.Code.DEADLINE_EXCEEDED) {
+                    logger.debug("Asset request deadline expired after {} assets", found);
+                    return StreamOutcome.PARTIAL;
+                }
+                logger.debug("Asset request cancelled by client after {} assets", found);
+                return StreamOutcome.CANCELLED;
+            }
+            long budgetNanos = deadline == null ? defaultRedisTimeout.toNanos()
+                    : deadline.timeRemaining(TimeUnit.NANOSECONDS) - deadlineReserve.toNanos();
+            if (budgetNanos <= 0) {
+                unresolved.addAll(request.getAssetIdsList().subList(i, totalRequested));
+                break;
+            }
+
+            hotKeyTracker.record(assetId);
+            long phaseStart = trace != null ? System.nanoTime() : 0;
+            CompactAsset asset = assetCache.getIfPresent(assetId);
+            if (trace != null) {
+                trace.add(RequestTrace.Phase.L1_LOOKUP, System.nanoTime() - phaseStart);
+            }
 
 //            logger.info("Found {} in caffeine", assetId);
 
             if (asset == null) {
-                asset = redisRepository.findAssetById(assetId);
+                try {
+                    asset = assetRepository.findAssetById(assetId, budgetNanos, TimeUnit.NANOSECONDS);
+                } catch (RepositoryTimeoutException e) {
+                    unresolved.add(assetId);
+                    continue;
+                }
 //                logger.info("Asset {} not found in local cache, Querying redis", assetId);
                 if (asset != null) {
 //                    logger.info("Received from Redis {}", asset.getAssetId());
@@ -52,9 +244,15 @@ public class AssetGrpcService extends AssetServiceGrpc.AssetServiceImplBase {
                 }
             }
 
-            if (asset != null) {
-                foundAssets.add(asset);
+            if (asset != null && i < knownVersions && asset.getVersion() != 0
+                    && asset.getVersion() == request.getKnownVersions(i)) {
+                if (unchanged == null) unchanged = new byte[(totalRequested + 7) >>> 3];
+                unchanged[i >>> 3] |= 1 << (i & 7);
+                found++;
+            } else if (asset != null) {
+                found++;
 
+                long convertStart = trace != null ? System.nanoTime() : 0;
                 AssetResponse response = AssetResponse.newBuilder()
                         .addAssets(convertToProtoAsset(asset))
                         .setTotalFound(1)
@@ -63,24 +261,161 @@ public class AssetGrpcService extends AssetServiceGrpc.AssetServiceImplBase {
                         .setProcessingTimeMs(System.currentTimeMillis() - startTime)
                         .build();
 
-                responseObserver.onNext(response);
+                if (trace == null) {
+                    responseObserver.onNext(response);
+                } else {
+                    long sendStart = System.nanoTime();
+                    trace.add(RequestTrace.Phase.CONVERT, sendStart - convertStart);
+                    responseObserver.onNext(response);
+                    trace.add(RequestTrace.Phase.ON_NEXT, System.nanoTime() - sendStart);
+                }
+            }
+        }
+        if (trace != null) {
+            trace.setOutcome(totalRequested, found);
+        }
+        boolean sendTrace = trace != null && trace.isRequested();
+
+        // If no asset was found, some could not be resolved in time or some were unchanged, send a completion frame
+        if (found == 0 || !unresolved.isEmpty() || unchanged != null || sendTrace) {
+            AssetResponse.Builder completion = AssetResponse.newBuilder()
+                    .setTotalFound(0)
+                    .setTotalRequested(totalRequested)
+                    .setServerInstance("port-" + serverPort)
+                    .setProcessingTimeMs(System.currentTimeMillis() - startTime)
+                    .addAllUnresolvedAssetIds(unresolved);
+            if (unchanged != null) {
+                completion.setUnchangedBitmap(ByteString.copyFrom(unchanged));
+            }
+            if (sendTrace) {
+                completion.setTrace(toTraceSummary(trace));
+            }
+            responseObserver.onNext(completion.build());
+        }
+
+        responseObserver.onCompleted();
+        if (!unresolved.isEmpty()) {
+            logger.info("Deadline reached, {} of {} assets unresolved", unresolved.size(), totalRequested);
+        }
+//        logger.info("Completed asset request for {} assets. Found: {}", totalRequested, found);
+        return unresolved.isEmpty() ? StreamOutcome.COMPLETE : StreamOutcome.PARTIAL;
+    }
+
+    /**
+     * Stream owned assets matching the request's predicates in asset ID order, in frames of
+     * chunk_size. Candidates come from the scan index a frame at a time; those missing from
+     * L1 are fetched in one batch, and every candidate is re-checked against the live asset.
+     * Every frame carries the cursor to resume after it; the final frame's cursor is
+     * empty once the scan is exhausted.
+     */
+    @Override
+    public void scanAssets(ScanRequest request, StreamObserver<ScanResponse> responseObserver) {
+        long startTime = System.currentTimeMillis();
+        AssetScanIndex.Query query = new AssetScanIndex.Query(
+                new HashSet<>(request.getCurrenciesList()),
+                request.hasMinMarketValue() ? request.getMinMarketValue() : null,
+                request.hasMaxMarketValue() ? request.getMaxMarketValue() : null,
+                request.hasCreatedFrom() ? request.getCreatedFrom() : null,
+                request.hasCreatedUntil() ? request.getCreatedUntil() : null);
+        int limit = request.getLimit() > 0 ? request.getLimit() : Integer.MAX_VALUE;
+        int chunkSize = request.getChunkSize() > 0 ? Math.min(request.getChunkSize(), MAX_SCAN_CHUNK) : defaultScanChunk;
+
+        AssetScanIndex.Scan scan = scanIndex.scan(query, request.getCursor());
+        Context context = Context.current();
+        ScanResponse.Builder frame = ScanResponse.newBuilder();
+        String cursor = request.getCursor();
+        boolean exhausted = false;
+        int sent = 0;
+
+        List<String> candidates = new ArrayList<>(chunkSize);
+        List<String> misses = new ArrayList<>(chunkSize);
+        Map<String, CompactAsset> fetched = new HashMap<>(chunkSize * 2);
+        while (sent < limit && !exhausted) {
+            if (context.isCancelled()) {
+                logger.debug("Scan cancelled by client after {} assets", sent);
+                return;
+            }
+            // Never take more candidates than could still be sent, so the cursor stays exact
+            int wanted = Math.min(chunkSize - frame.getAssetsCount(), limit - sent);
+            candidates.clear();
+            misses.clear();
+            fetched.clear();
+            while (candidates.size() < wanted) {
+                String assetId = scan.next();
+                if (assetId == null) {
+                    exhausted = true;
+                    break;
+                }
+                candidates.add(assetId);
+                CompactAsset asset = assetCache.getIfPresent(assetId);
+                if (asset != null) {
+                    fetched.put(assetId, asset);
+                } else {
+                    misses.add(assetId);
+                }
+            }
+            if (!misses.isEmpty()) {
+                for (CompactAsset asset : assetRepository.findAssetsByIds(misses)) {
+                    fetched.put(asset.getAssetId(), asset);
+                }
+            }
+
+            for (String assetId : candidates) {
+                cursor = assetId;
+                CompactAsset asset = fetched.get(assetId);
+                // The index may predate the latest writes
+                if (asset == null || !query.matches(asset)) {
+                    continue;
+                }
+                frame.addAssets(convertToProtoAsset(asset));
+                sent++;
+            }
+            if (frame.getAssetsCount() >= chunkSize) {
+                responseObserver.onNext(frame.setNextCursor(cursor).setServerInstance("port-" + serverPort).build());
+                frame = ScanResponse.newBuilder();
             }
         }
 
-        // If no asset was found, send a single empty response!
-        if (foundAssets.isEmpty()) {
-            responseObserver.onNext(
-                    AssetResponse.newBuilder()
-                            .setTotalFound(0)
-                            .setTotalRequested(totalRequested)
-                            .setServerInstance("port-" + serverPort)
-                            .setProcessingTimeMs(System.currentTimeMillis() - startTime)
-                            .build()
-            );
+        responseObserver.onNext(frame
+                .setNextCursor(exhausted ? "" : cursor)
+                .setServerInstance("port-" + serverPort)
+                .build());
+        responseObserver.onCompleted();
+        logger.info("Scan returned {} assets in {} ms", sent, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Report SERVING once the L1 is warm enough to take traffic (see {@link CacheWarmer}).
+     * The empty service name and the service's own name are known; anything else is not.
+     */
+    @Override
+    public void check(HealthCheckRequest request, StreamObserver<HealthCheckResponse> responseObserver) {
+        HealthCheckResponse.ServingStatus status;
+        String service = request.getService();
+        if (!service.isEmpty() && !service.equals(AssetServiceGrpc.SERVICE_NAME)) {
+            status = HealthCheckResponse.ServingStatus.SERVICE_UNKNOWN;
+        } else if (cacheWarmer.isReady()) {
+            status = HealthCheckResponse.ServingStatus.SERVING;
+        } else {
+            status = HealthCheckResponse.ServingStatus.NOT_SERVING;
         }
+        responseObserver.onNext(HealthCheckResponse.newBuilder().setStatus(status).build());
+        responseObserver.onCompleted();
+    }
 
+    /**
+     * Publish the partitioning that decides which IDs each instance warms, so clients can
+     * send every ID to the instance holding it in L1
+     */
+    @Override
+    public void getOwnership(OwnershipRequest request, StreamObserver<OwnershipMap> responseObserver) {
+        responseObserver.onNext(OwnershipMap.newBuilder()
+                .setScheme(OwnershipMap.Scheme.FNV1A32_MOD)
+                .setInstanceIndex(instanceIdx)
+                .setTotalInstances(totalInstances)
+                .addAllInstanceAddresses(instanceAddresses)
+                .build());
         responseObserver.onCompleted();
-//        logger.info("Completed asset request for {} assets. Found: {}", totalRequested, foundAssets.size());
     }
 
     @Override
@@ -88,18 +423,126 @@ public class AssetGrpcService extends AssetServiceGrpc.AssetServiceImplBase {
         getAssets(request, responseObserver); // Direct call
     }
 
-    private com.tankit.asset.proto.Asset convertToProtoAsset(Asset asset) {
-        return com.tankit.asset.proto.Asset.newBuilder()
+    /**
+     * Apply a stream of market value ticks, one per frame (see {@link UpdateStream})
+     */
+    @Override
+    public StreamObserver<AssetUpdate> updateAssets(StreamObserver<UpdateSummary> responseObserver) {
+        return new UpdateStream<>(responseObserver, Collections::singletonList);
+    }
+
+    /**
+     * Apply a stream of market value tick frames; assets missing from L1 are read from Redis
+     * once per frame (see {@link UpdateStream})
+     */
+    @Override
+    public StreamObserver<AssetUpdateBatch> updateAssetBatches(StreamObserver<UpdateSummary> responseObserver) {
+        return new UpdateStream<>(responseObserver, AssetUpdateBatch::getUpdatesList);
+    }
+
+    @Override
+    public void watchInvalidations(InvalidationRequest request, StreamObserver<AssetInvalidation> responseObserver) {
+        invalidationBroadcaster.subscribe(request.getClientId(),
+                (ServerCallStreamObserver<AssetInvalidation>) responseObserver);
+    }
+
+    /**
+     * Inbound side of an update stream. Each frame's ticks land in L1 immediately and are
+     * written behind to Redis; the next frame is only requested once the write-behind buffer
+     * has room, so a full buffer pushes back on the client through gRPC flow control.
+     */
+    private final class UpdateStream<T> implements StreamObserver<T> {
+        private final ServerCallStreamObserver<UpdateSummary> call;
+        private final Function<T, List<AssetUpdate>> updatesOf;
+        private final UpdateSummary.Builder summary = UpdateSummary.newBuilder();
+
+        UpdateStream(StreamObserver<UpdateSummary> responseObserver, Function<T, List<AssetUpdate>> updatesOf) {
+            this.call = (ServerCallStreamObserver<UpdateSummary>) responseObserver;
+            this.updatesOf = updatesOf;
+            call.disableAutoInboundFlowControl();
+            call.request(1);
+        }
+
+        @Override
+        public void onNext(T frame) {
+            List<AssetUpdate> updates = updatesOf.apply(frame);
+            List<String> assetIds = new ArrayList<>(updates.size());
+            double[] marketValues = new double[updates.size()];
+            for (int i = 0; i < marketValues.length; i++) {
+                assetIds.add(updates.get(i).getAssetId());
+                marketValues[i] = updates.get(i).getMarketValue();
+            }
+            WriteBehindBuffer.UpdateResult[] results = writeBehindBuffer.update(assetIds, marketValues);
+            for (int i = 0; i < results.length; i++) {
+                switch (results[i]) {
+                    case COALESCED:
+                        summary.setCoalesced(summary.getCoalesced() + 1);
+                        // fall through
+                    case ACCEPTED:
+                        summary.setAccepted(summary.getAccepted() + 1);
+                        break;
+                    default:
+                        summary.addUnknownAssetIds(assetIds.get(i));
+                }
+            }
+            writeBehindBuffer.whenCapacity(() -> call.request(1));
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            logger.debug("Update stream aborted after {} updates: {}", summary.getAccepted(), t.getMessage());
+        }
+
+        @Override
+        public void onCompleted() {
+            logger.info("Applied {} asset updates ({} coalesced), {} unknown",
+                    summary.getAccepted(), summary.getCoalesced(), summary.getUnknownAssetIdsCount());
+            call.onNext(summary.build());
+            call.onCompleted();
+        }
+    }
+
+    private static TraceSummary toTraceSummary(RequestTrace trace) {
+        return TraceSummary.newBuilder()
+                .setTotalNanos(trace.getTotalNanos())
+                .setL1LookupNanos(trace.getNanos(RequestTrace.Phase.L1_LOOKUP))
+                .setL2FetchNanos(trace.getNanos(RequestTrace.Phase.L2_FETCH))
+                .setDecodeNanos(trace.getNanos(RequestTrace.Phase.DECODE))
+                .setConvertNanos(trace.getNanos(RequestTrace.Phase.CONVERT))
+                .setOnNextNanos(trace.getNanos(RequestTrace.Phase.ON_NEXT))
+                .setL1Lookups(trace.getCount(RequestTrace.Phase.L1_LOOKUP))
+                .setL2Fetches(trace.getCount(RequestTrace.Phase.L2_FETCH))
+                .setFramesSent(trace.getCount(RequestTrace.Phase.ON_NEXT))
+                .build();
+    }
+
+    private com.tankit.asset.proto.Asset convertToProtoAsset(CompactAsset asset) {
+        com.tankit.asset.proto.Asset.Builder builder = com.tankit.asset.proto.Asset.newBuilder();
+
+        byte description = AssetDictionary.descriptionCode(asset.getDescription());
+        if (description != AssetDictionary.UNKNOWN) {
+            builder.setDescriptionBytes(DESCRIPTION_BYTES[description]);
+        } else {
+            builder.setDescription(asset.getDescription() == null ? "" : asset.getDescription());
+        }
+
+        byte currency = AssetDictionary.currencyCode(asset.getCurrency());
+        if (currency != AssetDictionary.UNKNOWN) {
+            builder.setCurrencyBytes(CURRENCY_BYTES[currency]);
+        } else {
+            builder.setCurrency(asset.getCurrency() == null ? "" : asset.getCurrency());
+        }
+
+        return builder
                 .setAssetId(asset.getAssetId())
                 .setName(asset.getName() == null ? "" : asset.getName())
-                .setDescription(asset.getDescription() == null ? "" : asset.getDescription())
                 .setCusip(asset.getCusip() == null ? "" : asset.getCusip())
                 .setBloombergId(asset.getBloombergId() == null ? "" : asset.getBloombergId())
                 .setIsin(asset.getIsin() == null ? "" : asset.getIsin())
                 .setSedol(asset.getSedol() == null ? "" : asset.getSedol())
-                .setCreatedTimestamp(asset.getCreatedTimestamp() != null ? asset.getCreatedTimestamp().toEpochMilli() : 0)
-                .setMarketValue(asset.getMarketValue() != null ? asset.getMarketValue() : 0.0)
-                .setCurrency(asset.getCurrency() == null ? "" : asset.getCurrency())
+                .setCreatedTimestamp(asset.hasCreatedTimestamp() ? asset.getCreatedTimestamp() : 0)
+                .setMarketValue(asset.hasMarketValue() ? asset.getMarketValue() : 0.0)
+                .setVersion(asset.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,153 @@
+package com.tankit.service.grpc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.tankit.asset.proto.AssetInvalidation;
+import com.tankit.service.cache.WriteBehindBuffer;
+import com.tankit.service.model.CompactAsset;
+import com.tankit.service.repository.AssetRepository;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relays asset invalidations from Redis pub/sub to the local L1 cache and to clients
+ * subscribed through WatchInvalidations.
+ *
+ * Invalidated IDs are coalesced per subscriber and flushed in batches. A subscriber that
+ * falls more than {@code grpc.invalidation.max-pending} IDs behind, or whose transport is
+ * not ready, gets a single reset frame instead of an unbounded backlog.
+ */
+@Component
+public class AssetInvalidationBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssetInvalidationBroadcaster.class);
+
+    @Value("${grpc.invalidation.max-pending:10000}")
+    private int maxPending;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private Cache<String, CompactAsset> assetCache;
+
+    @Autowired
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        assetRepository.subscribeInvalidations(this::onInvalidation);
+        Gauge.builder("asset.invalidation.subscribers", subscribers, Set::size)
+                .description("Clients subscribed to asset invalidations")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Register a WatchInvalidations stream; it starts with a reset frame
+     */
+    public void subscribe(String clientId, ServerCallStreamObserver<AssetInvalidation> observer) {
+        Subscriber subscriber = new Subscriber(clientId, observer);
+        observer.setOnCancelHandler(() -> {
+            subscribers.remove(subscriber);
+            logger.info("Invalidation subscriber {} disconnected", clientId);
+        });
+        subscriber.reset();
+        subscribers.add(subscriber);
+        subscriber.flush(sequence.get());
+        logger.info("Invalidation subscriber {} connected", clientId);
+    }
+
+    void onInvalidation(String assetId, long version) {
+        sequence.incrementAndGet();
+        if (AssetRepository.INVALIDATE_ALL.equals(assetId)) {
+            // Entries with an update still waiting to be written behind are newer than Redis
+            assetCache.asMap().keySet().removeIf(id -> !writeBehindBuffer.isPending(id));
+            subscribers.forEach(Subscriber::reset);
+        } else {
+            // Keep the L1 entry if it is this instance's own write coming back, or if a newer
+            // local update is still waiting to be written behind and will overwrite Redis anyway
+            if (!writeBehindBuffer.isPending(assetId)) {
+                assetCache.asMap().computeIfPresent(assetId,
+                        (id, cached) -> version != 0 && cached.getVersion() == version ? cached : null);
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.add(assetId);
+            }
+        }
+    }
+
+    /**
+     * Send pending invalidations to every subscriber
+     */
+    @Scheduled(fixedDelayString = "${grpc.invalidation.flush-interval-ms:50}")
+    public void flush() {
+        long seq = sequence.get();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.flush(seq);
+        }
+    }
+
+    private class Subscriber {
+        private final String clientId;
+        private final ServerCallStreamObserver<AssetInvalidation> observer;
+        private Set<String> pending = new LinkedHashSet<>();
+        private boolean resetPending;
+
+        Subscriber(String clientId, ServerCallStreamObserver<AssetInvalidation> observer) {
+            this.clientId = clientId;
+            this.observer = observer;
+        }
+
+        synchronized void add(String assetId) {
+            if (resetPending) return;
+            pending.add(assetId);
+            if (pending.size() > maxPending) {
+                reset();
+            }
+        }
+
+        synchronized void reset() {
+            resetPending = true;
+            pending.clear();
+        }
+
+        synchronized void flush(long seq) {
+            if ((!resetPending && pending.isEmpty()) || observer.isCancelled()) return;
+            if (!observer.isReady()) {
+                // Transport is backed up; once it drains the client just has to start over
+                if (!pending.isEmpty()) reset();
+                return;
+            }
+            try {
+                observer.onNext(AssetInvalidation.newBuilder()
+                        .setSequence(seq)
+                        .setReset(resetPending)
+                        .addAllAssetIds(pending)
+                        .build());
+                pending = new LinkedHashSet<>();
+                resetPending = false;
+            } catch (RuntimeException e) {
+                logger.warn("Dropping invalidation subscriber {}", clientId, e);
+                subscribers.remove(this);
+            }
+        }
+    }
+}
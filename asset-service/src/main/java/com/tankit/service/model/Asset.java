@@ -4,32 +4,37 @@ import java.time.Instant;
 import java.util.Objects;
 
 /**
- * Asset domain model representing financial instruments
+ * Asset domain model representing financial instruments.
+ *
+ * Low-cardinality fields (currency, description, Bloomberg exchange suffix) are
+ * interned through {@link AssetDictionary} so cached assets share those instances.
  */
 public class Asset {
     private String assetId;
     private String name;
     private String description;
     private String cusip;
-    private String bloombergId;
+    private String bloombergTicker;
+    private byte bloombergExchange = AssetDictionary.UNKNOWN;
     private String isin;
     private String sedol;
     private Instant createdTimestamp;
     private Double marketValue;
     private String currency;
+    private long version;
 
     public Asset() {
-        this.createdTimestamp = Instant.now();
         this.currency = "USD";
     }
 
     public Asset(String assetId, String name, String description, String cusip, String bloombergId) {
         this();
+        this.createdTimestamp = Instant.now();
         this.assetId = assetId;
         this.name = name;
-        this.description = description;
+        setDescription(description);
         this.cusip = cusip;
-        this.bloombergId = bloombergId;
+        setBloombergId(bloombergId);
     }
 
     // Getters and Setters
@@ -40,13 +45,27 @@ public class Asset {
     public void setName(String name) { this.name = name; }
 
     public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public void setDescription(String description) { this.description = AssetDictionary.internDescription(description); }
 
     public String getCusip() { return cusip; }
     public void setCusip(String cusip) { this.cusip = cusip; }
 
-    public String getBloombergId() { return bloombergId; }
-    public void setBloombergId(String bloombergId) { this.bloombergId = bloombergId; }
+    public String getBloombergId() { return AssetDictionary.bloombergId(bloombergTicker, bloombergExchange); }
+    public void setBloombergId(String bloombergId) {
+        byte exchange = AssetDictionary.exchangeCode(bloombergId);
+        this.bloombergTicker = exchange == AssetDictionary.UNKNOWN ? bloombergId
+                : bloombergId.substring(0, bloombergId.length() - AssetDictionary.exchangeSuffix(exchange).length());
+        this.bloombergExchange = exchange;
+    }
+
+    /** Set the Bloomberg ID from an already split ticker and exchange code. */
+    public void setBloombergId(String ticker, byte exchangeCode) {
+        this.bloombergTicker = ticker;
+        this.bloombergExchange = exchangeCode;
+    }
+
+    String bloombergTicker() { return bloombergTicker; }
+    byte bloombergExchange() { return bloombergExchange; }
 
     public String getIsin() { return isin; }
     public void setIsin(String isin) { this.isin = isin; }
@@ -61,7 +80,11 @@ public class Asset {
     public void setMarketValue(Double marketValue) { this.marketValue = marketValue; }
 
     public String getCurrency() { return currency; }
-    public void setCurrency(String currency) { this.currency = currency; }
+    public void setCurrency(String currency) { this.currency = AssetDictionary.internCurrency(currency); }
+
+    /** Version assigned by the repository on every write (unique, compare for equality); 0 if never written. */
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 
     @Override
     public boolean equals(Object o) {
@@ -82,7 +105,7 @@ public class Asset {
                 "assetId='" + assetId + '\'' +
                 ", name='" + name + '\'' +
                 ", cusip='" + cusip + '\'' +
-                ", bloombergId='" + bloombergId + '\'' +
+                ", bloombergId='" + getBloombergId() + '\'' +
                 ", marketValue=" + marketValue +
                 '}';
     }
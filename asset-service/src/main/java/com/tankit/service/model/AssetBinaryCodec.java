@@ -0,0 +1,137 @@
+package com.tankit.service.model;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link CompactAsset}.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *  0  byte    format version
+ *  1  byte    currency code       (UNKNOWN: literal stored in the string section)
+ *  2  byte    description code    (UNKNOWN: literal stored in the string section)
+ *  3  byte    bloomberg exchange code
+ *  4  long    created timestamp   (epoch millis, CompactAsset.NO_TIMESTAMP when absent)
+ * 12  double  market value        (NaN when absent)
+ * 20  long    version
+ * 28  strings u16 length + UTF-8 bytes each, 0xFFFF for null:
+ *             assetId, name, cusip, bloombergTicker, isin, sedol,
+ *             [description literal], [currency literal]
+ * </pre>
+ * The fixed header lets {@link AssetView} read the primitive fields straight off the
+ * serialized bytes without decoding the record.
+ */
+public final class AssetBinaryCodec {
+
+    public static final byte FORMAT_VERSION = 2;
+
+    static final int CURRENCY_OFFSET = 1;
+    static final int DESCRIPTION_OFFSET = 2;
+    static final int EXCHANGE_OFFSET = 3;
+    static final int TIMESTAMP_OFFSET = 4;
+    static final int MARKET_VALUE_OFFSET = 12;
+    static final int VERSION_OFFSET = 20;
+    static final int HEADER_SIZE = 28;
+
+    static final int NULL_LENGTH = 0xFFFF;
+
+    private AssetBinaryCodec() {
+    }
+
+    /**
+     * Serialize an asset into the binary layout
+     */
+    public static byte[] encode(CompactAsset asset) {
+        byte currency = AssetDictionary.currencyCode(asset.getCurrency());
+        byte description = AssetDictionary.descriptionCode(asset.getDescription());
+
+        byte[][] strings = {
+                utf8(asset.getAssetId()),
+                utf8(asset.getName()),
+                utf8(asset.getCusip()),
+                utf8(asset.getBloombergTicker()),
+                utf8(asset.getIsin()),
+                utf8(asset.getSedol()),
+        };
+        byte[] descriptionLiteral = description == AssetDictionary.UNKNOWN ? utf8(asset.getDescription()) : null;
+        byte[] currencyLiteral = currency == AssetDictionary.UNKNOWN ? utf8(asset.getCurrency()) : null;
+
+        int size = HEADER_SIZE + sizeOf(descriptionLiteral, description) + sizeOf(currencyLiteral, currency);
+        for (byte[] string : strings) {
+            size += sizeOf(string, AssetDictionary.UNKNOWN);
+        }
+
+        byte[] out = new byte[size];
+        out[0] = FORMAT_VERSION;
+        out[CURRENCY_OFFSET] = currency;
+        out[DESCRIPTION_OFFSET] = description;
+        out[EXCHANGE_OFFSET] = asset.getBloombergExchange();
+        putLong(out, TIMESTAMP_OFFSET, asset.getCreatedTimestamp());
+        putLong(out, MARKET_VALUE_OFFSET, Double.doubleToRawLongBits(asset.getMarketValue()));
+        putLong(out, VERSION_OFFSET, asset.getVersion());
+
+        int pos = HEADER_SIZE;
+        for (byte[] string : strings) {
+            pos = putString(out, pos, string);
+        }
+        if (description == AssetDictionary.UNKNOWN) {
+            pos = putString(out, pos, descriptionLiteral);
+        }
+        if (currency == AssetDictionary.UNKNOWN) {
+            putString(out, pos, currencyLiteral);
+        }
+        return out;
+    }
+
+    /**
+     * Deserialize an asset from the binary layout
+     */
+    public static CompactAsset decode(byte[] bytes) {
+        return new AssetView().wrap(bytes, 0, bytes.length).toCompactAsset();
+    }
+
+    static long getLong(byte[] buffer, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    static int getUnsignedShort(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 8) | (buffer[offset + 1] & 0xFF);
+    }
+
+    private static void putLong(byte[] buffer, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            buffer[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static int putString(byte[] buffer, int pos, byte[] value) {
+        int length = value == null ? NULL_LENGTH : value.length;
+        buffer[pos] = (byte) (length >>> 8);
+        buffer[pos + 1] = (byte) length;
+        pos += 2;
+        if (value != null) {
+            System.arraycopy(value, 0, buffer, pos, value.length);
+            pos += value.length;
+        }
+        return pos;
+    }
+
+    private static int sizeOf(byte[] value, byte code) {
+        if (code != AssetDictionary.UNKNOWN) return 0;
+        return 2 + (value == null ? 0 : value.length);
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) return null;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IllegalArgumentException("Asset field too long for binary encoding: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,141 @@
+package com.tankit.service.model;
+
+/**
+ * Dictionary of the low-cardinality Asset field values.
+ *
+ * Currencies, descriptions and Bloomberg exchange suffixes only take a handful of
+ * distinct values, so every cached Asset points at the shared instances held here
+ * instead of carrying its own copy. Each value also has a small integer code that
+ * compact encodings can store in place of the string.
+ */
+public final class AssetDictionary {
+
+    /** Code used for values that are not part of the dictionary. */
+    public static final byte UNKNOWN = -1;
+
+    public static final String[] ASSET_TYPES = {"EQUITY", "BOND", "COMMODITY", "CURRENCY", "DERIVATIVE"};
+
+    public static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY", "CAD", "AUD", "CHF"};
+
+    public static final String[] EXCHANGES = {"US", "LN", "JP", "GR", "FP"};
+
+    private static final String[] DESCRIPTIONS = new String[ASSET_TYPES.length];
+    private static final String[] EXCHANGE_SUFFIXES = new String[EXCHANGES.length];
+
+    static {
+        for (int i = 0; i < ASSET_TYPES.length; i++) {
+            DESCRIPTIONS[i] = "Financial instrument representing " + ASSET_TYPES[i].toLowerCase() + " security";
+        }
+        for (int i = 0; i < EXCHANGES.length; i++) {
+            EXCHANGE_SUFFIXES[i] = " " + EXCHANGES[i] + " Equity";
+        }
+    }
+
+    private AssetDictionary() {
+    }
+
+    // Currency
+
+    public static byte currencyCode(String currency) {
+        return codeOf(CURRENCIES, currency);
+    }
+
+    public static byte currencyCode(char[] chars, int offset, int length) {
+        return codeOf(CURRENCIES, chars, offset, length);
+    }
+
+    public static String currency(byte code) {
+        return CURRENCIES[code];
+    }
+
+    public static String internCurrency(String currency) {
+        return intern(CURRENCIES, currency);
+    }
+
+    // Description
+
+    public static byte descriptionCode(String description) {
+        return codeOf(DESCRIPTIONS, description);
+    }
+
+    public static byte descriptionCode(char[] chars, int offset, int length) {
+        return codeOf(DESCRIPTIONS, chars, offset, length);
+    }
+
+    public static String description(byte code) {
+        return DESCRIPTIONS[code];
+    }
+
+    public static String internDescription(String description) {
+        return intern(DESCRIPTIONS, description);
+    }
+
+    // Bloomberg exchange suffix
+
+    /**
+     * Code of the exchange suffix (e.g. " US Equity") the Bloomberg ID ends with
+     */
+    public static byte exchangeCode(String bloombergId) {
+        if (bloombergId == null) return UNKNOWN;
+        for (int i = 0; i < EXCHANGE_SUFFIXES.length; i++) {
+            if (bloombergId.endsWith(EXCHANGE_SUFFIXES[i])) return (byte) i;
+        }
+        return UNKNOWN;
+    }
+
+    public static byte exchangeCode(char[] chars, int offset, int length) {
+        for (int i = 0; i < EXCHANGE_SUFFIXES.length; i++) {
+            String suffix = EXCHANGE_SUFFIXES[i];
+            int suffixLength = suffix.length();
+            if (length >= suffixLength && regionMatches(suffix, chars, offset + length - suffixLength, suffixLength)) {
+                return (byte) i;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    public static String exchangeSuffix(byte code) {
+        return EXCHANGE_SUFFIXES[code];
+    }
+
+    /**
+     * Rebuild a Bloomberg ID from its ticker and exchange code
+     */
+    public static String bloombergId(String ticker, byte exchangeCode) {
+        if (ticker == null) return null;
+        return exchangeCode == UNKNOWN ? ticker : ticker.concat(EXCHANGE_SUFFIXES[exchangeCode]);
+    }
+
+    private static byte codeOf(String[] values, String value) {
+        if (value == null) return UNKNOWN;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) return (byte) i;
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) return (byte) i;
+        }
+        return UNKNOWN;
+    }
+
+    private static byte codeOf(String[] values, char[] chars, int offset, int length) {
+        for (int i = 0; i < values.length; i++) {
+            String candidate = values[i];
+            if (candidate.length() == length && regionMatches(candidate, chars, offset, length)) {
+                return (byte) i;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static String intern(String[] values, String value) {
+        byte code = codeOf(values, value);
+        return code == UNKNOWN ? value : values[code];
+    }
+
+    private static boolean regionMatches(String value, char[] chars, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != chars[offset + i]) return false;
+        }
+        return true;
+    }
+}
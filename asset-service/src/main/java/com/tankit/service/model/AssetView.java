@@ -0,0 +1,128 @@
+package com.tankit.service.model;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable flyweight over a binary-encoded asset (see {@link AssetBinaryCodec}).
+ *
+ * Primitive and dictionary fields are read directly from the fixed header; string
+ * fields are only decoded when asked for. A single view can be re-pointed at many
+ * records with {@link #wrap(byte[], int, int)}, so scanning needs no per-record objects.
+ */
+public final class AssetView {
+
+    private static final int ASSET_ID = 0;
+    private static final int NAME = 1;
+    private static final int CUSIP = 2;
+    private static final int BLOOMBERG_TICKER = 3;
+    private static final int ISIN = 4;
+    private static final int SEDOL = 5;
+    private static final int DESCRIPTION_LITERAL = 6;
+
+    private byte[] buffer;
+    private int offset;
+    private int length;
+
+    public AssetView wrap(byte[] buffer, int offset, int length) {
+        if (length < AssetBinaryCodec.HEADER_SIZE || buffer[offset] != AssetBinaryCodec.FORMAT_VERSION) {
+            throw new IllegalArgumentException("Not a binary asset record (format " +
+                    (length > 0 ? buffer[offset] : -1) + ", " + length + " bytes)");
+        }
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    public int length() { return length; }
+
+    public long getCreatedTimestamp() {
+        return AssetBinaryCodec.getLong(buffer, offset + AssetBinaryCodec.TIMESTAMP_OFFSET);
+    }
+
+    public double getMarketValue() {
+        return Double.longBitsToDouble(AssetBinaryCodec.getLong(buffer, offset + AssetBinaryCodec.MARKET_VALUE_OFFSET));
+    }
+
+    public long getVersion() {
+        return AssetBinaryCodec.getLong(buffer, offset + AssetBinaryCodec.VERSION_OFFSET);
+    }
+
+    public byte getCurrencyCode() { return buffer[offset + AssetBinaryCodec.CURRENCY_OFFSET]; }
+
+    public byte getDescriptionCode() { return buffer[offset + AssetBinaryCodec.DESCRIPTION_OFFSET]; }
+
+    public byte getBloombergExchange() { return buffer[offset + AssetBinaryCodec.EXCHANGE_OFFSET]; }
+
+    public String getAssetId() { return string(ASSET_ID); }
+
+    public String getName() { return string(NAME); }
+
+    public String getCusip() { return string(CUSIP); }
+
+    public String getBloombergTicker() { return string(BLOOMBERG_TICKER); }
+
+    public String getIsin() { return string(ISIN); }
+
+    public String getSedol() { return string(SEDOL); }
+
+    public String getDescription() {
+        byte code = getDescriptionCode();
+        return code != AssetDictionary.UNKNOWN ? AssetDictionary.description(code) : string(DESCRIPTION_LITERAL);
+    }
+
+    public String getCurrency() {
+        byte code = getCurrencyCode();
+        if (code != AssetDictionary.UNKNOWN) return AssetDictionary.currency(code);
+        // The currency literal follows the description literal when both are present
+        return string(getDescriptionCode() == AssetDictionary.UNKNOWN ? DESCRIPTION_LITERAL + 1 : DESCRIPTION_LITERAL);
+    }
+
+    /**
+     * Compare the encoded asset ID against {@code assetId} without decoding it; false for null
+     */
+    public boolean assetIdEquals(String assetId) {
+        if (assetId == null) return false;
+        for (int i = 0; i < assetId.length(); i++) {
+            if (assetId.charAt(i) > 0x7F) return assetId.equals(getAssetId());
+        }
+        int pos = offset + AssetBinaryCodec.HEADER_SIZE;
+        int len = AssetBinaryCodec.getUnsignedShort(buffer, pos);
+        if (len != assetId.length()) return false;
+        pos += 2;
+        for (int i = 0; i < len; i++) {
+            if (buffer[pos + i] != (byte) assetId.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Materialize the viewed record as an immutable CompactAsset
+     */
+    public CompactAsset toCompactAsset() {
+        return new CompactAsset(
+                getAssetId(),
+                getName(),
+                getDescription(),
+                getCusip(),
+                getBloombergTicker(),
+                getBloombergExchange(),
+                getIsin(),
+                getSedol(),
+                getCreatedTimestamp(),
+                getMarketValue(),
+                getCurrency(),
+                getVersion());
+    }
+
+    private String string(int index) {
+        int pos = offset + AssetBinaryCodec.HEADER_SIZE;
+        for (int i = 0; i < index; i++) {
+            int len = AssetBinaryCodec.getUnsignedShort(buffer, pos);
+            pos += 2 + (len == AssetBinaryCodec.NULL_LENGTH ? 0 : len);
+        }
+        int len = AssetBinaryCodec.getUnsignedShort(buffer, pos);
+        if (len == AssetBinaryCodec.NULL_LENGTH) return null;
+        return new String(buffer, pos + 2, len, StandardCharsets.UTF_8);
+    }
+}
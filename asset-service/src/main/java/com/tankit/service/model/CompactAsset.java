@@ -0,0 +1,173 @@
+package com.tankit.service.model;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Immutable, allocation-lean asset representation used by the cache and serving path.
+ *
+ * Numeric fields are primitives with sentinel-based absence ({@link #NO_TIMESTAMP},
+ * NaN for market value) instead of boxed Double and Instant, and the low-cardinality
+ * fields are shared {@link AssetDictionary} instances. The Bloomberg ID is assembled once
+ * at construction, since the serving path reads it for every response; the ticker is
+ * only needed by the write path and is cut from it on demand.
+ */
+public final class CompactAsset {
+
+    /** Sentinel for an absent created timestamp. */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    /** Sentinel for an absent market value. */
+    public static final double NO_MARKET_VALUE = Double.NaN;
+
+    private final String assetId;
+    private final String name;
+    private final String description;
+    private final String cusip;
+    private final String bloombergId;
+    private final byte bloombergExchange;
+    private final String isin;
+    private final String sedol;
+    private final long createdTimestamp;
+    private final double marketValue;
+    private final String currency;
+    private final long version;
+
+    public CompactAsset(String assetId, String name, String description, String cusip,
+                        String bloombergTicker, byte bloombergExchange, String isin, String sedol,
+                        long createdTimestamp, double marketValue, String currency, long version) {
+        this.assetId = assetId;
+        this.name = name;
+        this.description = AssetDictionary.internDescription(description);
+        this.cusip = cusip;
+        this.bloombergId = AssetDictionary.bloombergId(bloombergTicker, bloombergExchange);
+        this.bloombergExchange = bloombergExchange;
+        this.isin = isin;
+        this.sedol = sedol;
+        this.createdTimestamp = createdTimestamp;
+        this.marketValue = marketValue;
+        this.currency = AssetDictionary.internCurrency(currency);
+        this.version = version;
+    }
+
+    private CompactAsset(CompactAsset base, double marketValue, long version) {
+        this.assetId = base.assetId;
+        this.name = base.name;
+        this.description = base.description;
+        this.cusip = base.cusip;
+        this.bloombergId = base.bloombergId;
+        this.bloombergExchange = base.bloombergExchange;
+        this.isin = base.isin;
+        this.sedol = base.sedol;
+        this.createdTimestamp = base.createdTimestamp;
+        this.marketValue = marketValue;
+        this.currency = base.currency;
+        this.version = version;
+    }
+
+    /**
+     * Copy of this asset with a new market value and version, sharing every other field
+     */
+    public CompactAsset withMarketValue(double marketValue, long version) {
+        return new CompactAsset(this, marketValue, version);
+    }
+
+    /**
+     * Convert a mutable Asset into its compact form
+     */
+    public static CompactAsset from(Asset asset) {
+        return new CompactAsset(
+                asset.getAssetId(),
+                asset.getName(),
+                asset.getDescription(),
+                asset.getCusip(),
+                asset.bloombergTicker(),
+                asset.bloombergExchange(),
+                asset.getIsin(),
+                asset.getSedol(),
+                asset.getCreatedTimestamp() != null ? asset.getCreatedTimestamp().toEpochMilli() : NO_TIMESTAMP,
+                asset.getMarketValue() != null ? asset.getMarketValue() : NO_MARKET_VALUE,
+                asset.getCurrency(),
+                asset.getVersion());
+    }
+
+    /**
+     * Convert back to the mutable Asset used by the write path
+     */
+    public Asset toAsset() {
+        Asset asset = new Asset();
+        asset.setAssetId(assetId);
+        asset.setName(name);
+        asset.setDescription(description);
+        asset.setCusip(cusip);
+        asset.setBloombergId(getBloombergTicker(), bloombergExchange);
+        asset.setIsin(isin);
+        asset.setSedol(sedol);
+        asset.setCreatedTimestamp(hasCreatedTimestamp() ? Instant.ofEpochMilli(createdTimestamp) : null);
+        asset.setMarketValue(hasMarketValue() ? marketValue : null);
+        asset.setCurrency(currency);
+        asset.setVersion(version);
+        return asset;
+    }
+
+    public String getAssetId() { return assetId; }
+
+    public String getName() { return name; }
+
+    public String getDescription() { return description; }
+
+    public String getCusip() { return cusip; }
+
+    public String getBloombergId() { return bloombergId; }
+
+    public String getBloombergTicker() {
+        if (bloombergId == null || bloombergExchange == AssetDictionary.UNKNOWN) return bloombergId;
+        return bloombergId.substring(0, bloombergId.length() - AssetDictionary.exchangeSuffix(bloombergExchange).length());
+    }
+
+    public byte getBloombergExchange() { return bloombergExchange; }
+
+    public String getIsin() { return isin; }
+
+    public String getSedol() { return sedol; }
+
+    /** Epoch millis, or {@link #NO_TIMESTAMP} when absent. */
+    public long getCreatedTimestamp() { return createdTimestamp; }
+
+    public boolean hasCreatedTimestamp() { return createdTimestamp != NO_TIMESTAMP; }
+
+    /** Market value, or NaN when absent. */
+    public double getMarketValue() { return marketValue; }
+
+    public boolean hasMarketValue() { return !Double.isNaN(marketValue); }
+
+    public String getCurrency() { return currency; }
+
+    /** Repository-assigned version; 0 if unversioned. */
+    public long getVersion() { return version; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompactAsset that = (CompactAsset) o;
+        return Objects.equals(assetId, that.assetId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(assetId);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactAsset{" +
+                "assetId='" + assetId + '\'' +
+                ", name='" + name + '\'' +
+                ", cusip='" + cusip + '\'' +
+                ", bloombergId='" + bloombergId + '\'' +
+                ", marketValue=" + marketValue +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,108 @@
+package com.tankit.service.repository;
+
+import com.tankit.service.model.AssetDictionary;
+import com.tankit.service.model.CompactAsset;
+import io.lettuce.core.KeyValue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Field mapping for the hash asset layout.
+ *
+ * Reads ask for {@link #FIELDS} with HMGET, so the reply comes back in field order and
+ * is decoded by position, without building a field-name map per asset. Every field is
+ * always written, with an empty value for an absent timestamp or market value, so an
+ * HSET fully replaces a previous version of the asset.
+ */
+final class AssetHashCodec {
+
+    static final String[] FIELDS = {
+        "assetId", "name", "description", "cusip", "bloombergId", "isin", "sedol",
+        "createdTimestamp", "marketValue", "currency", "version"
+    };
+
+    private static final int ASSET_ID = 0;
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int CUSIP = 3;
+    private static final int BLOOMBERG_ID = 4;
+    private static final int ISIN = 5;
+    private static final int SEDOL = 6;
+    private static final int CREATED_TIMESTAMP = 7;
+    private static final int MARKET_VALUE = 8;
+    private static final int CURRENCY = 9;
+    private static final int VERSION = 10;
+
+    private AssetHashCodec() {
+    }
+
+    static Map<String, String> encode(CompactAsset asset) {
+        Map<String, String> hash = new HashMap<>(FIELDS.length * 2);
+        hash.put(FIELDS[ASSET_ID], asset.getAssetId());
+        hash.put(FIELDS[NAME], n(asset.getName()));
+        hash.put(FIELDS[DESCRIPTION], n(asset.getDescription()));
+        hash.put(FIELDS[CUSIP], n(asset.getCusip()));
+        hash.put(FIELDS[BLOOMBERG_ID], n(asset.getBloombergId()));
+        hash.put(FIELDS[ISIN], n(asset.getIsin()));
+        hash.put(FIELDS[SEDOL], n(asset.getSedol()));
+        hash.put(FIELDS[CREATED_TIMESTAMP], asset.hasCreatedTimestamp() ? Long.toString(asset.getCreatedTimestamp()) : "");
+        hash.put(FIELDS[MARKET_VALUE], asset.hasMarketValue() ? Double.toString(asset.getMarketValue()) : "");
+        hash.put(FIELDS[CURRENCY], n(asset.getCurrency()));
+        hash.put(FIELDS[VERSION], Long.toString(asset.getVersion()));
+        return hash;
+    }
+
+    /**
+     * Decode an HMGET reply for {@link #FIELDS}, or return null if the asset does not exist
+     */
+    static CompactAsset decode(List<KeyValue<String, String>> values) {
+        if (values.size() != FIELDS.length || !values.get(ASSET_ID).hasValue()) {
+            return null;
+        }
+        String bloombergId = value(values, BLOOMBERG_ID);
+        byte exchange = AssetDictionary.exchangeCode(bloombergId);
+        String ticker = exchange == AssetDictionary.UNKNOWN ? bloombergId
+                : bloombergId.substring(0, bloombergId.length() - AssetDictionary.exchangeSuffix(exchange).length());
+        return new CompactAsset(
+                value(values, ASSET_ID),
+                value(values, NAME),
+                value(values, DESCRIPTION),
+                value(values, CUSIP),
+                ticker,
+                exchange,
+                value(values, ISIN),
+                value(values, SEDOL),
+                parseLong(values, CREATED_TIMESTAMP, CompactAsset.NO_TIMESTAMP),
+                parseDouble(values, MARKET_VALUE),
+                value(values, CURRENCY),
+                parseLong(values, VERSION, 0));
+    }
+
+    private static String value(List<KeyValue<String, String>> values, int field) {
+        return values.get(field).getValueOrElse("");
+    }
+
+    private static long parseLong(List<KeyValue<String, String>> values, int field, long absent) {
+        String value = value(values, field);
+        if (value.isEmpty()) return absent;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return absent;
+        }
+    }
+
+    private static double parseDouble(List<KeyValue<String, String>> values, int field) {
+        String value = value(values, field);
+        if (value.isEmpty()) return CompactAsset.NO_MARKET_VALUE;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return CompactAsset.NO_MARKET_VALUE;
+        }
+    }
+
+    private static String n(String s) { return s == null ? "" : s; }
+}
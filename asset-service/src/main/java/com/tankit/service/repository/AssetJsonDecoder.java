@@ -0,0 +1,109 @@
+package com.tankit.service.repository;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.tankit.service.model.AssetDictionary;
+import com.tankit.service.model.CompactAsset;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Streaming decoder for the JSON asset layout into {@link CompactAsset}.
+ *
+ * Reads tokens straight off the parser so that dictionary fields (currency, description,
+ * Bloomberg exchange suffix) are matched against the parser's character buffer and
+ * resolved to shared instances without allocating a String per field, and numeric
+ * fields go straight into primitives with no intermediate Asset, Double or Instant.
+ */
+class AssetJsonDecoder {
+
+    private final JsonFactory jsonFactory;
+
+    AssetJsonDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    CompactAsset decode(String json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected JSON object for asset");
+            }
+            String assetId = null;
+            String name = null;
+            String description = null;
+            String cusip = null;
+            String bloombergTicker = null;
+            byte bloombergExchange = AssetDictionary.UNKNOWN;
+            String isin = null;
+            String sedol = null;
+            long createdTimestamp = CompactAsset.NO_TIMESTAMP;
+            double marketValue = CompactAsset.NO_MARKET_VALUE;
+            // Same default as Asset, for payloads written without a currency
+            String currency = "USD";
+            long version = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "assetId":
+                        assetId = parser.getText();
+                        break;
+                    case "name":
+                        name = parser.getText();
+                        break;
+                    case "description":
+                        byte descriptionCode = AssetDictionary.descriptionCode(
+                                parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        description = descriptionCode == AssetDictionary.UNKNOWN
+                                ? parser.getText() : AssetDictionary.description(descriptionCode);
+                        break;
+                    case "cusip":
+                        cusip = parser.getText();
+                        break;
+                    case "bloombergId":
+                        char[] chars = parser.getTextCharacters();
+                        int offset = parser.getTextOffset();
+                        int length = parser.getTextLength();
+                        bloombergExchange = AssetDictionary.exchangeCode(chars, offset, length);
+                        bloombergTicker = bloombergExchange == AssetDictionary.UNKNOWN
+                                ? parser.getText()
+                                : new String(chars, offset, length - AssetDictionary.exchangeSuffix(bloombergExchange).length());
+                        break;
+                    case "isin":
+                        isin = parser.getText();
+                        break;
+                    case "sedol":
+                        sedol = parser.getText();
+                        break;
+                    case "createdTimestamp":
+                        createdTimestamp = token == JsonToken.VALUE_STRING
+                                ? Instant.parse(parser.getText()).toEpochMilli()
+                                : parser.getLongValue();
+                        break;
+                    case "marketValue":
+                        marketValue = parser.getDoubleValue();
+                        break;
+                    case "currency":
+                        byte currencyCode = AssetDictionary.currencyCode(
+                                parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        currency = currencyCode == AssetDictionary.UNKNOWN
+                                ? parser.getText() : AssetDictionary.currency(currencyCode);
+                        break;
+                    case "version":
+                        version = parser.getLongValue();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return new CompactAsset(assetId, name, description, cusip, bloombergTicker, bloombergExchange,
+                    isin, sedol, createdTimestamp, marketValue, currency, version);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.tankit.service.repository;
+
+/**
+ * How an asset is stored under its {@code asset:<id>} key in Redis. Chosen per deployment
+ * with {@code redis.layout}; every instance sharing a Redis must use the same layout, and
+ * switching layouts requires reloading the data.
+ */
+public enum AssetLayout {
+    /** JSON string, decoded by streaming over the fields */
+    JSON,
+    /** Hash with one field per attribute, read with HMGET and decoded by field position */
+    HASH,
+    /** Compact binary encoding from {@link com.tankit.service.model.AssetBinaryCodec} */
+    BINARY
+}
@@ -4,30 +4,75 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.tankit.service.model.Asset;
+import com.tankit.service.model.AssetBinaryCodec;
+import com.tankit.service.model.AssetDictionary;
+import com.tankit.service.model.CompactAsset;
+import com.tankit.service.trace.RequestTrace;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
 import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisCommandInterruptedException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.ValueScanCursor;
+import io.lettuce.core.ZStoreArgs;
 import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Redis-based repository for Asset storage and retrieval
+ * Redis-based repository for Asset storage and retrieval. Assets are stored in the
+ * layout chosen with {@code redis.layout} (see {@link AssetLayout}).
+ *
+ * Assets can be sharded client-side across the standalone nodes listed in
+ * {@code redis.shards}: the Redis Cluster key slot of the asset's key is computed, and
+ * shard i owns the i-th of equal contiguous slot ranges, the way an evenly split cluster
+ * would. Each shard keeps its own {@code assets:all} set of the IDs it holds. Keys that are not per asset (versions, hot IDs) and the invalidation channel live
+ * on the first shard. Changing the shard list requires reloading the data.
  */
 @Repository
-public class AssetRedisRepository {
+@ConditionalOnProperty(name = "repository.type", havingValue = "redis", matchIfMissing = true)
+public class AssetRedisRepository implements AssetRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(AssetRedisRepository.class);
     private static final String ASSET_KEY_PREFIX = "asset:";
     private static final String ASSET_SET_KEY = "assets:all";
+    private static final String HOT_KEY_PREFIX = "assets:hot:";
+    private static final double HOT_KEY_DECAY = 0.5;
+    private static final int MAX_PIPELINED_BATCHES = 16;
+    private static final String INVALIDATION_CHANNEL = "assets:invalidations";
+    private static final String VERSION_KEY = "assets:version";
+
+    // Separates the asset ID from the written version in invalidation messages
+    private static final char VERSION_SEPARATOR = '@';
 
     @Value("${spring.redis.host:localhost}")
     private String redisHost;
@@ -35,195 +80,390 @@ public class AssetRedisRepository {
     @Value("${spring.redis.port:6379}")
     private int redisPort;
 
+    @Value("${spring.redis.timeout:2000ms}")
+    private Duration commandTimeout;
+
+    @Value("${redis.scan-count:1000}")
+    private int scanCount;
+
+    @Value("${redis.layout:json}")
+    private AssetLayout layout;
+
+    @Value("${redis.shards:}")
+    private List<String> shardAddresses;
+
     private RedisClient redisClient;
+    private Shard[] shards;
+    // The first shard's connection, which also holds the keys that are not per asset
     private StatefulRedisConnection<String, String> connection;
     private RedisCommands<String, String> commands;
+    private StatefulRedisPubSubConnection<String, String> pubSubConnection;
     private ObjectMapper objectMapper;
-    private ExecutorService executorService;
+    private AssetJsonDecoder jsonDecoder;
 
     @PostConstruct
     public void init() {
-        String redisUri = String.format("redis://%s:%d", redisHost, redisPort);
-        redisClient = RedisClient.create(redisUri);
-        connection = redisClient.connect();
-        commands = connection.sync();
+        List<String> addresses = shardAddresses.isEmpty()
+                ? Collections.singletonList(redisHost + ":" + redisPort)
+                : shardAddresses;
+        redisClient = RedisClient.create();
+        shards = new Shard[addresses.size()];
+        for (int i = 0; i < shards.length; i++) {
+            String address = addresses.get(i).trim();
+            int separator = address.lastIndexOf(':');
+            RedisURI uri = RedisURI.Builder
+                    .redis(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1)))
+                    .withTimeout(commandTimeout)
+                    .build();
+            shards[i] = new Shard(uri, redisClient.connect(uri),
+                    redisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE), uri));
+        }
+        connection = shards[0].connection;
+        commands = shards[0].commands;
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        executorService = Executors.newFixedThreadPool(4);
+        jsonDecoder = new AssetJsonDecoder(objectMapper.getFactory());
 
-        logger.info("Connected to Redis at {}:{}", redisHost, redisPort);
+        logger.info("Connected to Redis at {} ({} layout)", addresses, layout);
     }
 
     @PreDestroy
     public void cleanup() {
-        if (connection != null) {
-            connection.close();
+        if (shards != null) {
+            for (Shard shard : shards) {
+                if (shard != null) {
+                    shard.connection.close();
+                    shard.binaryConnection.close();
+                }
+            }
+        }
+        if (pubSubConnection != null) {
+            pubSubConnection.close();
         }
         if (redisClient != null) {
             redisClient.shutdown();
         }
-        if (executorService != null) {
-            executorService.shutdown();
-        }
     }
 
     /**
-     * Store a single asset in Redis
+     * Store a single asset in Redis in the configured layout, stamping it with the next version
      */
+    @Override
     public void saveAsset(Asset asset) {
-        try {
-            String key = ASSET_KEY_PREFIX + asset.getAssetId();
-            String value = objectMapper.writeValueAsString(asset);
-
-            commands.set(key, value);
-            commands.sadd(ASSET_SET_KEY, asset.getAssetId());
-
-            logger.debug("Saved asset: {}", asset.getAssetId());
-        } catch (Exception e) {
-            logger.error("Error saving asset: {}", asset.getAssetId(), e);
-            throw new RuntimeException("Failed to save asset", e);
-        }
+        saveAsset(layout, asset);
     }
 
     /** Store a single asset in Redis as a Hash. */
     public void saveAssetAsHash(Asset asset) {
-        try {
-            String key = ASSET_KEY_PREFIX + asset.getAssetId();
-            Map<String, String> hash = assetToMap(asset);
-            commands.hset(key, hash);
-            commands.sadd(ASSET_SET_KEY, asset.getAssetId());
-            logger.debug("Saved asset (as hash): {}", asset.getAssetId());
-        } catch (Exception e) {
-            logger.error("Error saving asset as hash: {}", asset.getAssetId(), e);
-            throw new RuntimeException("Failed to save asset", e);
-        }
+        saveAsset(AssetLayout.HASH, asset);
     }
 
-    /**
-     * Store multiple assets in Redis using pipeline for better performance
-     */
-    public void saveAssets(List<Asset> assets) {
-        try {
-            // Use async operations for better performance
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-            for (Asset asset : assets) {
-                CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                    saveAsset(asset);
-                }, executorService);
-                futures.add(future);
-            }
+    /** Store a single asset in Redis in the compact binary layout. */
+    public void saveAssetAsBinary(Asset asset) {
+        saveAsset(AssetLayout.BINARY, asset);
+    }
 
-            // Wait for all operations to complete
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    private void saveAsset(AssetLayout layout, Asset asset) {
+        asset.setVersion(reserveVersions(1));
+        writeAssets(layout, Collections.singletonList(CompactAsset.from(asset)), true);
+        logger.debug("Saved asset ({}): {}", layout, asset.getAssetId());
+    }
 
-            logger.info("Saved {} assets to Redis", assets.size());
-        } catch (Exception e) {
-            logger.error("Error saving assets in batch", e);
-            throw new RuntimeException("Failed to save assets", e);
-        }
+    /**
+     * Store multiple assets in the configured layout, versioned in one round trip and
+     * written in one pipelined batch
+     */
+    @Override
+    public void saveAssets(List<Asset> assets, boolean publishInvalidations) {
+        saveAssets(layout, assets, publishInvalidations);
     }
 
     /** Batch save as hash. */
     public void saveAssetsAsHash(List<Asset> assets) {
-        try {
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            for (Asset asset : assets) {
-                futures.add(CompletableFuture.runAsync(() -> saveAssetAsHash(asset), executorService));
-            }
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            logger.info("Saved {} assets to Redis (hash)", assets.size());
-        } catch (Exception e) {
-            logger.error("Error saving assets in batch", e);
-            throw new RuntimeException("Failed to save assets", e);
+        saveAssets(AssetLayout.HASH, assets, true);
+    }
+
+    private void saveAssets(AssetLayout layout, List<Asset> assets, boolean publishInvalidations) {
+        if (assets.isEmpty()) return;
+        assignVersions(assets);
+        List<CompactAsset> compact = new ArrayList<>(assets.size());
+        for (Asset asset : assets) {
+            compact.add(CompactAsset.from(asset));
         }
+        writeAssets(layout, compact, publishInvalidations);
+        logger.info("Saved {} assets to Redis ({})", assets.size(), layout);
+    }
+
+    /**
+     * Write already-versioned assets in the configured layout
+     */
+    @Override
+    public void writeAssets(Collection<CompactAsset> assets) {
+        writeAssets(layout, assets, true);
     }
 
     /**
-     * Retrieve single asset by Id
+     * Write already-versioned assets in one pipelined round trip per shard: a SET or HSET per
+     * asset, a single SADD per shard and, if {@code publishInvalidations} is set, an
+     * invalidation per asset, all in flight together.
      */
-    public Asset findHashedAssetById(String assetId) {
+    public void writeAssets(AssetLayout layout, Collection<CompactAsset> assets, boolean publishInvalidations) {
+        if (assets.isEmpty()) return;
         try {
-            String key = ASSET_KEY_PREFIX + assetId;
-            Map<String, String> hash = commands.hgetall(key);
-            if (hash != null && !hash.isEmpty()) {
-                return mapToAsset(hash);
+            RedisAsyncCommands<String, String> async = connection.async();
+            List<RedisFuture<?>> futures = new ArrayList<>(assets.size() * 2 + shards.length);
+            List<List<String>> idsByShard = emptyShardLists(assets.size());
+            for (CompactAsset asset : assets) {
+                futures.add(write(layout, asset));
+                idsByShard.get(shardIndex(asset.getAssetId())).add(asset.getAssetId());
             }
-            logger.debug("Asset not found: {}", assetId);
-            return null;
+            for (int shard = 0; shard < shards.length; shard++) {
+                List<String> ids = idsByShard.get(shard);
+                if (!ids.isEmpty()) {
+                    futures.add(shards[shard].connection.async().sadd(ASSET_SET_KEY, ids.toArray(new String[0])));
+                }
+            }
+            if (publishInvalidations) {
+                for (CompactAsset asset : assets) {
+                    futures.add(async.publish(INVALIDATION_CHANNEL, invalidationMessage(asset.getAssetId(), asset.getVersion())));
+                }
+            }
+            if (!LettuceFutures.awaitAll(commandTimeout, futures.toArray(new RedisFuture[0]))) {
+                throw new RedisCommandTimeoutException("Timed out writing " + assets.size() + " assets");
+            }
+            for (RedisFuture<?> future : futures) {
+                if (future.getError() != null) {
+                    throw new RedisCommandExecutionException(future.getError());
+                }
+            }
+            logger.debug("Wrote {} assets ({})", assets.size(), layout);
         } catch (Exception e) {
-            logger.error("Error retrieving asset as hash: " + assetId, e);
-            return null;
+            logger.error("Error writing {} assets", assets.size(), e);
+            throw new RuntimeException("Failed to write assets", e);
         }
     }
 
-    /** Retrieve multiple assets. */
-    public List<Asset> findHashedAssetsByIds(List<String> assetIds) {
-        List<Asset> assets = new ArrayList<>();
-        try {
+    /**
+     * Remove assets from every layout and the ID set, optionally publishing an invalidation for each
+     */
+    public void deleteAssets(Collection<String> assetIds, boolean publishInvalidations) {
+        if (assetIds.isEmpty()) return;
+        List<List<String>> idsByShard = emptyShardLists(assetIds.size());
+        for (String assetId : assetIds) {
+            idsByShard.get(shardIndex(assetId)).add(assetId);
+        }
+        for (int shard = 0; shard < shards.length; shard++) {
+            List<String> ids = idsByShard.get(shard);
+            if (ids.isEmpty()) continue;
+            String[] keys = new String[ids.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = ASSET_KEY_PREFIX + ids.get(i);
+            }
+            shards[shard].commands.unlink(keys);
+            shards[shard].commands.srem(ASSET_SET_KEY, ids.toArray(new String[0]));
+        }
+        if (publishInvalidations) {
             for (String assetId : assetIds) {
-                Asset asset = findAssetById(assetId);
-                if (asset != null) assets.add(asset);
+                publishInvalidation(assetId, 0);
             }
-            logger.debug("Found {} out of {} requested assets", assets.size(), assetIds.size());
-            return assets;
-        } catch (Exception e) {
-            logger.error("Error retrieving assets as hash", e);
-            throw new RuntimeException("Failed to retrieve assets", e);
         }
     }
 
+    /**
+     * Bytes Redis uses to hold an asset's key and value, or 0 if it does not exist
+     */
+    public long memoryUsage(String assetId) {
+        Long bytes = shards[shardIndex(assetId)].commands.memoryUsage(ASSET_KEY_PREFIX + assetId);
+        return bytes == null ? 0 : bytes;
+    }
+
+    /**
+     * Retrieve single asset stored as a hash
+     */
+    public CompactAsset findHashedAssetById(String assetId) {
+        return findAssetById(AssetLayout.HASH, assetId);
+    }
+
+    /** Retrieve multiple assets stored as hashes, with pipelined HMGETs. */
+    public List<CompactAsset> findHashedAssetsByIds(List<String> assetIds) {
+        return findAssetsByIds(AssetLayout.HASH, assetIds);
+    }
+
+    /**
+     * Retrieve a single asset stored in the binary layout
+     */
+    public CompactAsset findBinaryAssetById(String assetId) {
+        return findAssetById(AssetLayout.BINARY, assetId);
+    }
+
     /**
      * Retrieve a single asset by ID
      */
-    public Asset findAssetById(String assetId) {
-        try {
-            String key = ASSET_KEY_PREFIX + assetId;
-            String value = commands.get(key);
+    @Override
+    public CompactAsset findAssetById(String assetId) {
+        return findAssetById(layout, assetId);
+    }
 
-            if (value != null) {
-                Asset asset = objectMapper.readValue(value, Asset.class);
-                logger.debug("Found asset: {}", assetId);
-                return asset;
-            }
+    /**
+     * Retrieve a single asset stored in the given layout, or null if it does not exist
+     */
+    public CompactAsset findAssetById(AssetLayout layout, String assetId) {
+        try {
+            CompactAsset asset = decode(layout, fetch(layout, assetId).get(commandTimeout.toMillis(), TimeUnit.MILLISECONDS));
+            logger.debug(asset != null ? "Found asset: {}" : "Asset not found: {}", assetId);
+            return asset;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisCommandInterruptedException(e);
+        } catch (Exception e) {
+            logger.error("Error retrieving asset: {}", assetId, e);
+            return null;
+        }
+    }
 
-            logger.debug("Asset not found: {}", assetId);
+    /**
+     * Retrieve a single asset by ID, waiting at most {@code timeout} for Redis to answer.
+     *
+     * @throws RepositoryTimeoutException if Redis did not answer in time
+     */
+    @Override
+    public CompactAsset findAssetById(String assetId, long timeout, TimeUnit unit) {
+        RequestTrace trace = RequestTrace.current();
+        long fetchStart = trace != null ? System.nanoTime() : 0;
+        RedisFuture<?> future = fetch(layout, assetId);
+        Object value;
+        try {
+            value = future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new RepositoryTimeoutException("Timed out retrieving asset " + assetId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisCommandInterruptedException(e);
+        } catch (ExecutionException e) {
+            logger.error("Error retrieving asset: {}", assetId, e.getCause());
             return null;
+        }
+
+        long decodeStart = trace != null ? System.nanoTime() : 0;
+        if (trace != null) {
+            trace.add(RequestTrace.Phase.L2_FETCH, decodeStart - fetchStart);
+        }
+        try {
+            return decode(layout, value);
         } catch (Exception e) {
-            logger.error("Error retrieving asset: {}", assetId, e);
+            logger.error("Error decoding asset: {}", assetId, e);
             return null;
+        } finally {
+            if (trace != null && value != null) {
+                trace.add(RequestTrace.Phase.DECODE, System.nanoTime() - decodeStart);
+            }
         }
     }
 
     /**
-     * Retrieve multiple assets by IDs
+     * Retrieve multiple assets by IDs from the configured layout
      */
-    public List<Asset> findAssetsByIds(List<String> assetIds) {
-        List<Asset> assets = new ArrayList<>();
+    @Override
+    public List<CompactAsset> findAssetsByIds(List<String> assetIds) {
+        return findAssetsByIds(layout, assetIds);
+    }
 
+    /**
+     * Retrieve multiple assets stored in the given layout. Each ID is pipelined on its
+     * shard's connection, one GET or HMGET per ID, so every shard works on its share at once.
+     * Results follow request order; missing IDs are skipped.
+     */
+    public List<CompactAsset> findAssetsByIds(AssetLayout layout, List<String> assetIds) {
+        List<CompactAsset> assets = new ArrayList<>(assetIds.size());
         try {
-            for (String assetId : assetIds) {
-                Asset asset = findAssetById(assetId);
-                if (asset != null) {
-                    assets.add(asset);
+            RedisFuture<?>[] futures = new RedisFuture[assetIds.size()];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = fetch(layout, assetIds.get(i));
+            }
+            if (!LettuceFutures.awaitAll(commandTimeout, futures)) {
+                throw new RedisCommandTimeoutException("Timed out retrieving " + assetIds.size() + " assets");
+            }
+            for (int i = 0; i < futures.length; i++) {
+                try {
+                    CompactAsset asset = decode(layout, futures[i].get());
+                    if (asset != null) {
+                        assets.add(asset);
+                    }
+                } catch (ExecutionException | IOException e) {
+                    logger.error("Error retrieving asset: {}", assetIds.get(i), e);
                 }
             }
 
             logger.debug("Found {} out of {} requested assets", assets.size(), assetIds.size());
             return assets;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisCommandInterruptedException(e);
         } catch (Exception e) {
             logger.error("Error retrieving assets", e);
             throw new RuntimeException("Failed to retrieve assets", e);
         }
     }
 
+    private RedisFuture<?> fetch(AssetLayout layout, String assetId) {
+        return fetch(layout, shardIndex(assetId), assetId);
+    }
+
+    private RedisFuture<?> fetch(AssetLayout layout, int shard, String assetId) {
+        String key = ASSET_KEY_PREFIX + assetId;
+        switch (layout) {
+            case HASH:
+                return shards[shard].connection.async().hmget(key, AssetHashCodec.FIELDS);
+            case BINARY:
+                return shards[shard].binaryConnection.async().get(key);
+            default:
+                return shards[shard].connection.async().get(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompactAsset decode(AssetLayout layout, Object reply) throws IOException {
+        if (reply == null) return null;
+        switch (layout) {
+            case HASH:
+                return AssetHashCodec.decode((List<KeyValue<String, String>>) reply);
+            case BINARY:
+                return AssetBinaryCodec.decode((byte[]) reply);
+            default:
+                return jsonDecoder.decode((String) reply);
+        }
+    }
+
+    private RedisFuture<?> write(AssetLayout layout, CompactAsset asset) throws IOException {
+        String key = ASSET_KEY_PREFIX + asset.getAssetId();
+        Shard shard = shards[shardIndex(asset.getAssetId())];
+        switch (layout) {
+            case HASH:
+                return shard.connection.async().hset(key, AssetHashCodec.encode(asset));
+            case BINARY:
+                return shard.binaryConnection.async().set(key, AssetBinaryCodec.encode(asset));
+            default:
+                return shard.connection.async().set(key, objectMapper.writeValueAsString(asset.toAsset()));
+        }
+    }
+
     /**
-     * Get total number of assets in Redis
+     * Get total number of assets in Redis, summing every shard's ID set
      */
+    @Override
     public long getTotalAssetCount() {
         try {
-            return commands.scard(ASSET_SET_KEY);
+            List<RedisFuture<Long>> counts = new ArrayList<>(shards.length);
+            for (Shard shard : shards) {
+                counts.add(shard.connection.async().scard(ASSET_SET_KEY));
+            }
+            long total = 0;
+            for (RedisFuture<Long> count : counts) {
+                total += await(count);
+            }
+            return total;
         } catch (Exception e) {
             logger.error("Error getting asset count", e);
             return 0;
@@ -231,11 +471,13 @@ public class AssetRedisRepository {
     }
 
     /**
-     * Get all asset IDs (for testing purposes - use carefully with large datasets)
+     * Get all asset IDs (for testing purposes - use carefully with large datasets).
+     * Collected incrementally with SSCAN rather than a single SMEMBERS reply.
      */
+    @Override
     public Set<String> getAllAssetIds() {
         try {
-            return commands.smembers(ASSET_SET_KEY);
+            return scanAssetIds().collect(Collectors.toSet());
         } catch (Exception e) {
             logger.error("Error getting all asset IDs", e);
             throw new RuntimeException("Failed to get asset IDs", e);
@@ -243,60 +485,243 @@ public class AssetRedisRepository {
     }
 
     /**
-     * Clear all assets (for testing purposes)
+     * Lazily stream all asset IDs using cursor-based SSCAN, fetching {@code redis.scan-count}
+     * IDs per round trip and walking the shards one after another. SSCAN may return an ID
+     * more than once; callers must tolerate duplicates.
+     */
+    @Override
+    public Stream<String> scanAssetIds() {
+        Iterator<List<String>> pages = new Iterator<List<String>>() {
+            private int shard;
+            private AssetIdPageIterator shardPages = new AssetIdPageIterator(shards[0]);
+
+            @Override
+            public boolean hasNext() {
+                while (!shardPages.hasNext() && shard + 1 < shards.length) {
+                    shardPages = new AssetIdPageIterator(shards[++shard]);
+                }
+                return shardPages.hasNext();
+            }
+
+            @Override
+            public List<String> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return shardPages.next();
+            }
+        };
+        Iterator<String> ids = new Iterator<String>() {
+            private Iterator<String> page = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && pages.hasNext()) {
+                    page = pages.next().iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return page.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids, Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Clear all assets (for testing purposes). Walks each shard's ID set with SSCAN and
+     * removes each page of keys with a single UNLINK, keeping several pages in flight at once.
      */
+    @Override
     public void clearAllAssets() {
         try {
-            Set<String> assetIds = getAllAssetIds();
-            for (String assetId : assetIds) {
-                commands.del(ASSET_KEY_PREFIX + assetId);
+            long removed = 0;
+            for (Shard shard : shards) {
+                RedisAsyncCommands<String, String> async = shard.connection.async();
+                Deque<RedisFuture<Long>> inFlight = new ArrayDeque<>();
+
+                AssetIdPageIterator pages = new AssetIdPageIterator(shard);
+                while (pages.hasNext()) {
+                    List<String> page = pages.next();
+                    String[] keys = new String[page.size()];
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = ASSET_KEY_PREFIX + page.get(i);
+                    }
+                    inFlight.add(async.unlink(keys));
+                    if (inFlight.size() >= MAX_PIPELINED_BATCHES) {
+                        removed += await(inFlight.poll());
+                    }
+                }
+                while (!inFlight.isEmpty()) {
+                    removed += await(inFlight.poll());
+                }
+                shard.commands.unlink(ASSET_SET_KEY);
             }
-            commands.del(ASSET_SET_KEY);
 
-            logger.info("Cleared all assets from Redis");
+            publishInvalidation(INVALIDATE_ALL);
+
+            logger.info("Cleared {} assets from Redis", removed);
         } catch (Exception e) {
             logger.error("Error clearing assets", e);
             throw new RuntimeException("Failed to clear assets", e);
         }
     }
 
-    private Map<String, String> assetToMap(Asset asset) {
-        Map<String, String> m = new HashMap<>();
-        m.put("assetId", asset.getAssetId());
-        m.put("name", n(asset.getName()));
-        m.put("description", n(asset.getDescription()));
-        m.put("cusip", n(asset.getCusip()));
-        m.put("bloombergId", n(asset.getBloombergId()));
-        m.put("isin", n(asset.getIsin()));
-        m.put("sedol", n(asset.getSedol()));
-        m.put("currency", n(asset.getCurrency()));
-        if (asset.getCreatedTimestamp() != null) m.put("createdTimestamp", String.valueOf(asset.getCreatedTimestamp().toEpochMilli()));
-        if (asset.getMarketValue() != null) m.put("marketValue", String.valueOf(asset.getMarketValue()));
-        return m;
-    }
-
-    private Asset mapToAsset(Map<String, String> map) {
-        Asset a = new Asset();
-        a.setAssetId(map.getOrDefault("assetId", ""));
-        a.setName(map.getOrDefault("name", ""));
-        a.setDescription(map.getOrDefault("description", ""));
-        a.setCusip(map.getOrDefault("cusip", ""));
-        a.setBloombergId(map.getOrDefault("bloombergId", ""));
-        a.setIsin(map.getOrDefault("isin", ""));
-        a.setSedol(map.getOrDefault("sedol", ""));
-        a.setCurrency(map.getOrDefault("currency", ""));
-        if (map.containsKey("createdTimestamp")) {
-            try {
-                a.setCreatedTimestamp(java.time.Instant.ofEpochMilli(Long.parseLong(map.get("createdTimestamp"))));
-            } catch (Exception ignored) {}
+    /**
+     * Subscribe to invalidations published by any instance's writes. The listener receives
+     * an asset ID and the version written (0 if unknown) per changed asset, or
+     * {@link #INVALIDATE_ALL} when every asset changed.
+     */
+    @Override
+    public synchronized void subscribeInvalidations(BiConsumer<String, Long> listener) {
+        if (pubSubConnection == null) {
+            pubSubConnection = redisClient.connectPubSub(shards[0].uri);
+            pubSubConnection.sync().subscribe(INVALIDATION_CHANNEL);
+        }
+        pubSubConnection.addListener(new RedisPubSubAdapter<String, String>() {
+            @Override
+            public void message(String channel, String message) {
+                int separator = message.lastIndexOf(VERSION_SEPARATOR);
+                if (separator > 0) {
+                    try {
+                        listener.accept(message.substring(0, separator), Long.parseLong(message.substring(separator + 1)));
+                        return;
+                    } catch (NumberFormatException ignored) {}
+                }
+                listener.accept(message, 0L);
+            }
+        });
+    }
+
+    private void publishInvalidation(String assetId) {
+        // Fire-and-forget: writes must not wait on subscribers
+        connection.async().publish(INVALIDATION_CHANNEL, assetId);
+    }
+
+    private void publishInvalidation(String assetId, long version) {
+        publishInvalidation(invalidationMessage(assetId, version));
+    }
+
+    private static String invalidationMessage(String assetId, long version) {
+        return assetId + VERSION_SEPARATOR + version;
+    }
+
+    /**
+     * Merge one interval of access frequencies into the instance's persisted hot-key set.
+     * Existing scores are decayed first and the set is trimmed to {@code retain} entries.
+     */
+    @Override
+    public void saveHotAssetIds(int instanceIndex, List<Map.Entry<String, Integer>> frequencies, int retain) {
+        String key = HOT_KEY_PREFIX + instanceIndex;
+        String intervalKey = key + ":interval";
+        try {
+            List<ScoredValue<String>> values = new ArrayList<>(frequencies.size());
+            for (Map.Entry<String, Integer> entry : frequencies) {
+                values.add(ScoredValue.just(entry.getValue(), entry.getKey()));
+            }
+            commands.del(intervalKey);
+            commands.zadd(intervalKey, values.toArray(new ScoredValue[0]));
+            commands.zunionstore(key, ZStoreArgs.Builder.weights(HOT_KEY_DECAY, 1.0), key, intervalKey);
+            commands.del(intervalKey);
+            commands.zremrangebyrank(key, 0, -(retain + 1L));
+        } catch (Exception e) {
+            logger.error("Error saving hot asset IDs for instance {}", instanceIndex, e);
+            throw new RuntimeException("Failed to save hot asset IDs", e);
+        }
+    }
+
+    /**
+     * Persisted hot asset IDs of an instance, hottest first
+     */
+    @Override
+    public List<String> findHotAssetIds(int instanceIndex, int limit) {
+        try {
+            return commands.zrevrange(HOT_KEY_PREFIX + instanceIndex, 0, limit - 1L);
+        } catch (Exception e) {
+            logger.error("Error getting hot asset IDs for instance {}", instanceIndex, e);
+            throw new RuntimeException("Failed to get hot asset IDs", e);
+        }
+    }
+
+    /**
+     * Reserve {@code count} consecutive versions and return the highest one.
+     * Versions are unique across instances; compare them for equality only.
+     */
+    @Override
+    public long reserveVersions(int count) {
+        return count == 1 ? commands.incr(VERSION_KEY) : commands.incrby(VERSION_KEY, count);
+    }
+
+    /** Stamp a batch with versions reserved in a single round trip. */
+    private void assignVersions(List<Asset> assets) {
+        if (assets.isEmpty()) return;
+        long version = reserveVersions(assets.size()) - assets.size();
+        for (Asset asset : assets) {
+            asset.setVersion(++version);
+        }
+    }
+
+    private long await(RedisFuture<Long> future) throws Exception {
+        Long result = future.get(connection.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        return result == null ? 0 : result;
+    }
+
+    private int shardIndex(String assetId) {
+        return shards.length == 1 ? 0
+                : SlotHash.getSlot(ASSET_KEY_PREFIX + assetId) * shards.length / SlotHash.SLOT_COUNT;
+    }
+
+    private <T> List<List<T>> emptyShardLists(int expectedTotal) {
+        List<List<T>> lists = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            lists.add(new ArrayList<>(expectedTotal / shards.length + 1));
         }
-        if (map.containsKey("marketValue")) {
-            try {
-                a.setMarketValue(Double.parseDouble(map.get("marketValue")));
-            } catch (Exception ignored) {}
+        return lists;
+    }
+
+    /**
+     * Connections to one standalone Redis node holding a share of the assets
+     */
+    private static final class Shard {
+        final RedisURI uri;
+        final StatefulRedisConnection<String, String> connection;
+        final RedisCommands<String, String> commands;
+        final StatefulRedisConnection<String, byte[]> binaryConnection;
+
+        Shard(RedisURI uri, StatefulRedisConnection<String, String> connection,
+              StatefulRedisConnection<String, byte[]> binaryConnection) {
+            this.uri = uri;
+            this.connection = connection;
+            this.commands = connection.sync();
+            this.binaryConnection = binaryConnection;
         }
-        return a;
     }
 
-    private String n(String s) { return s == null ? "" : s; }
+    /**
+     * Pages of asset IDs from successive SSCAN calls over one shard's ID set
+     */
+    private class AssetIdPageIterator implements Iterator<List<String>> {
+        private final ScanArgs scanArgs = ScanArgs.Builder.limit(scanCount);
+        private final RedisCommands<String, String> commands;
+        private ValueScanCursor<String> cursor;
+
+        AssetIdPageIterator(Shard shard) {
+            this.commands = shard.commands;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor == null || !cursor.isFinished();
+        }
+
+        @Override
+        public List<String> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            cursor = cursor == null
+                    ? commands.sscan(ASSET_SET_KEY, scanArgs)
+                    : commands.sscan(ASSET_SET_KEY, cursor, scanArgs);
+            return cursor.getValues();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.tankit.service.repository;
+
+import com.tankit.service.model.Asset;
+import com.tankit.service.model.CompactAsset;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Storage contract behind the L1 cache. The backend is chosen with {@code repository.type}:
+ * {@code redis} (default, shared between instances) or {@code local} (embedded log store
+ * for single-node deployments).
+ */
+public interface AssetRepository {
+
+    /** Invalidation message meaning every asset changed. */
+    String INVALIDATE_ALL = "*";
+
+    /**
+     * Store a single asset, stamping it with the next version
+     */
+    void saveAsset(Asset asset);
+
+    /**
+     * Store many assets, stamping each with a fresh version
+     */
+    default void saveAssets(List<Asset> assets) {
+        saveAssets(assets, true);
+    }
+
+    /**
+     * Store many assets, stamping each with a fresh version. Bulk loads of assets that are
+     * new to the store pass false to skip the per-asset invalidations, since no cache can
+     * hold them yet.
+     */
+    void saveAssets(List<Asset> assets, boolean publishInvalidations);
+
+    /**
+     * Store already-versioned assets as one batch
+     */
+    void writeAssets(Collection<CompactAsset> assets);
+
+    /**
+     * Reserve {@code count} consecutive versions and return the highest one.
+     * Versions are unique; compare them for equality only.
+     */
+    long reserveVersions(int count);
+
+    /**
+     * Retrieve a single asset by ID, or null if it does not exist
+     */
+    CompactAsset findAssetById(String assetId);
+
+    /**
+     * Retrieve a single asset by ID, waiting at most {@code timeout} for the store to answer.
+     *
+     * @throws RepositoryTimeoutException if the store did not answer in time
+     */
+    CompactAsset findAssetById(String assetId, long timeout, TimeUnit unit);
+
+    /**
+     * Retrieve multiple assets by IDs; missing IDs are skipped
+     */
+    List<CompactAsset> findAssetsByIds(List<String> assetIds);
+
+    long getTotalAssetCount();
+
+    Set<String> getAllAssetIds();
+
+    /**
+     * Lazily stream all asset IDs. Callers must tolerate duplicates and close the stream.
+     */
+    Stream<String> scanAssetIds();
+
+    void clearAllAssets();
+
+    /**
+     * Subscribe to invalidations caused by writes. The listener receives an asset ID and the
+     * version written (0 if unknown) per changed asset, or {@link #INVALIDATE_ALL} when every
+     * asset changed.
+     */
+    void subscribeInvalidations(BiConsumer<String, Long> listener);
+
+    /**
+     * Merge one interval of access frequencies into the instance's persisted hot-key set.
+     * Existing scores are decayed first and the set is trimmed to {@code retain} entries.
+     */
+    void saveHotAssetIds(int instanceIndex, List<Map.Entry<String, Integer>> frequencies, int retain);
+
+    /**
+     * Persisted hot asset IDs of an instance, hottest first
+     */
+    List<String> findHotAssetIds(int instanceIndex, int limit);
+}
@@ -0,0 +1,762 @@
+package com.tankit.service.repository;
+
+import com.tankit.service.model.Asset;
+import com.tankit.service.model.AssetBinaryCodec;
+import com.tankit.service.model.AssetView;
+import com.tankit.service.model.CompactAsset;
+import com.tankit.service.trace.RequestTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Embedded asset store for single-node deployments: an append-only log of binary-encoded
+ * assets with a memory-mapped open-addressing hash index, so an L1 miss is a page-cache
+ * read instead of a network round trip.
+ *
+ * Log records are {@code [int length][int crc32c][payload]}, the payload being the
+ * {@link AssetBinaryCodec} encoding. Index slots hold {@code [long hash][long offset][int length]};
+ * a hash match is confirmed against the record's asset ID. The index header carries a
+ * clean-shutdown flag: after a crash the index is rebuilt by replaying the log, and a torn
+ * tail record (bad length or CRC) is truncated. Once dead records exceed
+ * {@code repository.local.compaction-threshold} of the log, live records are copied into a
+ * fresh log and index that replace the old ones; reads and writes wait while that runs.
+ */
+@Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "local")
+public class LocalLogAssetRepository implements AssetRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalLogAssetRepository.class);
+    private static final String LOG_FILE = "assets.log";
+    private static final String INDEX_FILE = "assets.idx";
+    private static final String COMPACT_SUFFIX = ".compact";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String HOT_FILE_PREFIX = "hot-";
+    private static final double HOT_KEY_DECAY = 0.5;
+    private static final int SAVE_BATCH_SIZE = 1000;
+    private static final int SCAN_CHUNK = 1024;
+
+    private static final int RECORD_HEADER = 8;
+    private static final int INDEX_MAGIC = 0x41534958;
+    private static final int INDEX_HEADER = 64;
+    private static final int SLOT_SIZE = 24;
+    private static final double MAX_LOAD = 0.7;
+
+    // Index header fields
+    private static final int H_MAGIC = 0;
+    private static final int H_CAPACITY = 4;
+    private static final int H_SIZE = 8;
+    private static final int H_CLEAN = 12;
+    private static final int H_VERSION = 16;
+    private static final int H_LOG_END = 24;
+    private static final int H_DEAD_BYTES = 32;
+
+    @Value("${repository.local.path:./data/assets-${app.instance-index:0}}")
+    private String path;
+
+    @Value("${repository.local.initial-capacity:262144}")
+    private int initialCapacity;
+
+    @Value("${repository.local.sync-writes:false}")
+    private boolean syncWrites;
+
+    @Value("${repository.local.compaction-threshold:0.5}")
+    private double compactionThreshold;
+
+    @Value("${repository.local.compaction-min-bytes:67108864}")
+    private long compactionMinBytes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<BiConsumer<String, Long>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+    private final Object hotLock = new Object();
+
+    private Path dir;
+    private FileChannel log;
+    private long logEnd;
+    private long deadBytes;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int size;
+    // Bumped whenever slot positions change, so scans know to start over
+    private long generation;
+
+    @PostConstruct
+    public void init() {
+        try {
+            dir = Paths.get(path);
+            Files.createDirectories(dir);
+            Files.deleteIfExists(dir.resolve(LOG_FILE + COMPACT_SUFFIX));
+            Files.deleteIfExists(dir.resolve(INDEX_FILE + COMPACT_SUFFIX));
+            log = FileChannel.open(dir.resolve(LOG_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            if (!openIndex()) {
+                recover();
+            }
+            index.putInt(H_CLEAN, 0);
+            logger.info("Opened local asset store at {} with {} assets ({} log bytes, {} dead)",
+                    dir.toAbsolutePath(), size, logEnd, deadBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open local asset store at " + path, e);
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        lock.writeLock().lock();
+        try {
+            if (log == null || !log.isOpen()) return;
+            log.force(true);
+            writeHeader(index);
+            index.putInt(H_CLEAN, 1);
+            index.force();
+            log.close();
+            indexChannel.close();
+        } catch (IOException e) {
+            logger.error("Error closing local asset store", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAsset(Asset asset) {
+        asset.setVersion(reserveVersions(1));
+        writeAssets(Collections.singletonList(CompactAsset.from(asset)));
+        logger.debug("Saved asset: {}", asset.getAssetId());
+    }
+
+    @Override
+    public void saveAssets(List<Asset> assets, boolean publishInvalidations) {
+        long next = reserveVersions(assets.size()) - assets.size();
+        List<CompactAsset> batch = new ArrayList<>(Math.min(SAVE_BATCH_SIZE, assets.size()));
+        for (Asset asset : assets) {
+            asset.setVersion(++next);
+            batch.add(CompactAsset.from(asset));
+            if (batch.size() == SAVE_BATCH_SIZE) {
+                append(batch, publishInvalidations);
+                batch.clear();
+            }
+        }
+        append(batch, publishInvalidations);
+        logger.info("Saved {} assets to local store", assets.size());
+    }
+
+    /**
+     * Append the batch with a single write and index it; fsynced when
+     * {@code repository.local.sync-writes} is set
+     */
+    @Override
+    public void writeAssets(Collection<CompactAsset> assets) {
+        append(assets, true);
+    }
+
+    private void append(Collection<CompactAsset> assets, boolean notify) {
+        if (assets.isEmpty()) return;
+        List<byte[]> payloads = new ArrayList<>(assets.size());
+        int total = 0;
+        for (CompactAsset asset : assets) {
+            byte[] payload = AssetBinaryCodec.encode(asset);
+            payloads.add(payload);
+            total += RECORD_HEADER + payload.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        CRC32C crc = new CRC32C();
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        buffer.flip();
+
+        lock.writeLock().lock();
+        try {
+            long offset = logEnd;
+            long position = logEnd;
+            while (buffer.hasRemaining()) {
+                position += log.write(buffer, position);
+            }
+            if (syncWrites) {
+                log.force(false);
+            }
+            logEnd = position;
+            Iterator<CompactAsset> it = assets.iterator();
+            for (byte[] payload : payloads) {
+                indexPut(it.next().getAssetId(), offset, payload.length);
+                offset += RECORD_HEADER + payload.length;
+            }
+            index.putLong(H_LOG_END, logEnd);
+            index.putLong(H_VERSION, version.get());
+        } catch (IOException e) {
+            logger.error("Error writing {} assets", assets.size(), e);
+            throw new UncheckedIOException("Failed to write assets", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (notify) {
+            for (CompactAsset asset : assets) {
+                notifyListeners(asset.getAssetId(), asset.getVersion());
+            }
+        }
+    }
+
+    @Override
+    public long reserveVersions(int count) {
+        return version.addAndGet(count);
+    }
+
+    @Override
+    public CompactAsset findAssetById(String assetId) {
+        lock.readLock().lock();
+        try {
+            return lookup(assetId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads never touch the network, but they queue behind a writer holding the store lock
+     * (an append, a clear or a compaction); the timeout bounds that wait.
+     */
+    @Override
+    public CompactAsset findAssetById(String assetId, long timeout, TimeUnit unit) {
+        try {
+            if (!lock.readLock().tryLock(timeout, unit)) {
+                throw new RepositoryTimeoutException("Timed out retrieving asset " + assetId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryTimeoutException("Interrupted retrieving asset " + assetId);
+        }
+        try {
+            return lookup(assetId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Probe the index for an asset; the caller holds the read lock
+     */
+    private CompactAsset lookup(String assetId) {
+        try {
+            long hash = hash(assetId);
+            AssetView view = new AssetView();
+            RequestTrace trace = RequestTrace.current();
+            for (int slot = home(hash); ; slot = next(slot)) {
+                int pos = slotPosition(slot);
+                long slotHash = index.getLong(pos);
+                if (slotHash == 0) {
+                    logger.debug("Asset not found: {}", assetId);
+                    return null;
+                }
+                if (slotHash == hash) {
+                    long fetchStart = trace != null ? System.nanoTime() : 0;
+                    byte[] payload = readPayload(index.getLong(pos + 8), index.getInt(pos + 16));
+                    long decodeStart = trace != null ? System.nanoTime() : 0;
+                    if (trace != null) {
+                        trace.add(RequestTrace.Phase.L2_FETCH, decodeStart - fetchStart);
+                    }
+                    if (view.wrap(payload, 0, payload.length).assetIdEquals(assetId)) {
+                        CompactAsset asset = view.toCompactAsset();
+                        if (trace != null) {
+                            trace.add(RequestTrace.Phase.DECODE, System.nanoTime() - decodeStart);
+                        }
+                        return asset;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error retrieving asset: {}", assetId, e);
+            return null;
+        }
+    }
+
+    @Override
+    public List<CompactAsset> findAssetsByIds(List<String> assetIds) {
+        List<CompactAsset> assets = new ArrayList<>(assetIds.size());
+        for (String assetId : assetIds) {
+            CompactAsset asset = findAssetById(assetId);
+            if (asset != null) {
+                assets.add(asset);
+            }
+        }
+        logger.debug("Found {} out of {} requested assets", assets.size(), assetIds.size());
+        return assets;
+    }
+
+    @Override
+    public long getTotalAssetCount() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> getAllAssetIds() {
+        try (Stream<String> ids = scanAssetIds()) {
+            return ids.collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Stream IDs by walking the index in chunks under the read lock. If a resize or
+     * compaction moves the slots in between, the walk starts over (yielding duplicates).
+     */
+    @Override
+    public Stream<String> scanAssetIds() {
+        Iterator<String> ids = new Iterator<String>() {
+            private final AssetView view = new AssetView();
+            private long scanGeneration = -1;
+            private int slot;
+            private Iterator<String> chunk = Collections.emptyIterator();
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                while (!chunk.hasNext() && !finished) {
+                    chunk = nextChunk().iterator();
+                }
+                return chunk.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return chunk.next();
+            }
+
+            private List<String> nextChunk() {
+                lock.readLock().lock();
+                try {
+                    if (scanGeneration != generation) {
+                        scanGeneration = generation;
+                        slot = 0;
+                    }
+                    List<String> result = new ArrayList<>(SCAN_CHUNK);
+                    for (; slot < capacity && result.size() < SCAN_CHUNK; slot++) {
+                        int pos = slotPosition(slot);
+                        if (index.getLong(pos) != 0) {
+                            byte[] payload = readPayload(index.getLong(pos + 8), index.getInt(pos + 16));
+                            result.add(view.wrap(payload, 0, payload.length).getAssetId());
+                        }
+                    }
+                    finished = slot >= capacity;
+                    return result;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to scan asset IDs", e);
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids, Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public void clearAllAssets() {
+        lock.writeLock().lock();
+        try {
+            long removed = size;
+            log.truncate(0);
+            logEnd = 0;
+            deadBytes = 0;
+            createIndex(dir.resolve(INDEX_FILE), initialCapacity);
+            logger.info("Cleared {} assets from local store", removed);
+        } catch (IOException e) {
+            logger.error("Error clearing assets", e);
+            throw new UncheckedIOException("Failed to clear assets", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyListeners(INVALIDATE_ALL, 0);
+    }
+
+    /**
+     * Writes are only visible to this process, so listeners are called directly on the
+     * writing thread
+     */
+    @Override
+    public void subscribeInvalidations(BiConsumer<String, Long> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void saveHotAssetIds(int instanceIndex, List<Map.Entry<String, Integer>> frequencies, int retain) {
+        synchronized (hotLock) {
+            try {
+                Map<String, Double> scores = new HashMap<>();
+                for (Map.Entry<String, Double> entry : readHotIds(instanceIndex)) {
+                    scores.put(entry.getKey(), entry.getValue() * HOT_KEY_DECAY);
+                }
+                for (Map.Entry<String, Integer> entry : frequencies) {
+                    scores.merge(entry.getKey(), entry.getValue().doubleValue(), Double::sum);
+                }
+                List<Map.Entry<String, Double>> ranked = new ArrayList<>(scores.entrySet());
+                ranked.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+
+                Path file = dir.resolve(HOT_FILE_PREFIX + instanceIndex);
+                Path tmp = dir.resolve(HOT_FILE_PREFIX + instanceIndex + TMP_SUFFIX);
+                try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    for (Map.Entry<String, Double> entry : ranked.subList(0, Math.min(retain, ranked.size()))) {
+                        writer.write(entry.getValue() + "\t" + entry.getKey());
+                        writer.newLine();
+                    }
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.error("Error saving hot asset IDs for instance {}", instanceIndex, e);
+                throw new UncheckedIOException("Failed to save hot asset IDs", e);
+            }
+        }
+    }
+
+    @Override
+    public List<String> findHotAssetIds(int instanceIndex, int limit) {
+        synchronized (hotLock) {
+            try {
+                List<Map.Entry<String, Double>> ranked = readHotIds(instanceIndex);
+                List<String> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+                for (int i = 0; i < ranked.size() && i < limit; i++) {
+                    ids.add(ranked.get(i).getKey());
+                }
+                return ids;
+            } catch (IOException e) {
+                logger.error("Error getting hot asset IDs for instance {}", instanceIndex, e);
+                throw new UncheckedIOException("Failed to get hot asset IDs", e);
+            }
+        }
+    }
+
+    /**
+     * Compact the log once enough of it is dead
+     */
+    @Scheduled(fixedDelayString = "${repository.local.compaction-interval-ms:60000}")
+    public void compactIfNeeded() {
+        if (logEnd < compactionMinBytes || deadBytes < logEnd * compactionThreshold) {
+            return;
+        }
+        try {
+            compact();
+        } catch (Exception e) {
+            logger.error("Compaction of local asset store failed", e);
+        }
+    }
+
+    /**
+     * Copy live records into a new log and index and swap them in
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            long start = System.currentTimeMillis();
+            long before = logEnd;
+            Path compactLog = dir.resolve(LOG_FILE + COMPACT_SUFFIX);
+            Path compactIndex = dir.resolve(INDEX_FILE + COMPACT_SUFFIX);
+
+            FileChannel oldLog = log;
+            MappedByteBuffer oldIndex = index;
+            FileChannel oldIndexChannel = indexChannel;
+            int oldCapacity = capacity;
+
+            FileChannel newLog = FileChannel.open(compactLog, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            createIndex(compactIndex, capacityFor(size));
+            long position = 0;
+            for (int slot = 0; slot < oldCapacity; slot++) {
+                int pos = INDEX_HEADER + slot * SLOT_SIZE;
+                long hash = oldIndex.getLong(pos);
+                if (hash == 0) continue;
+                long offset = oldIndex.getLong(pos + 8);
+                int length = oldIndex.getInt(pos + 16);
+                ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + length);
+                readFully(oldLog, record, offset);
+                record.flip();
+                long recordOffset = position;
+                while (record.hasRemaining()) {
+                    position += newLog.write(record, position);
+                }
+                insertSlot(hash, recordOffset, length);
+                size++;
+            }
+            newLog.force(true);
+            log = newLog;
+            logEnd = position;
+            deadBytes = 0;
+            writeHeader(index);
+            index.force();
+
+            Files.move(compactLog, dir.resolve(LOG_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(compactIndex, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            oldLog.close();
+            oldIndexChannel.close();
+            logger.info("Compacted local asset store from {} to {} bytes in {} ms",
+                    before, logEnd, System.currentTimeMillis() - start);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Map the existing index if it was closed cleanly and matches the log
+     */
+    private boolean openIndex() throws IOException {
+        Path file = dir.resolve(INDEX_FILE);
+        if (!Files.exists(file) || Files.size(file) < INDEX_HEADER) {
+            return false;
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER);
+        int storedCapacity = header.getInt(H_CAPACITY);
+        boolean valid = header.getInt(H_MAGIC) == INDEX_MAGIC
+                && header.getInt(H_CLEAN) == 1
+                && header.getLong(H_LOG_END) == log.size()
+                && channel.size() == INDEX_HEADER + (long) storedCapacity * SLOT_SIZE;
+        if (!valid) {
+            channel.close();
+            logger.warn("Local asset store was not shut down cleanly, rebuilding index from the log");
+            return false;
+        }
+        indexChannel = channel;
+        index = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        capacity = storedCapacity;
+        size = index.getInt(H_SIZE);
+        logEnd = index.getLong(H_LOG_END);
+        deadBytes = index.getLong(H_DEAD_BYTES);
+        version.set(index.getLong(H_VERSION));
+        return true;
+    }
+
+    /**
+     * Rebuild the index by replaying the log, truncating a torn tail
+     */
+    private void recover() throws IOException {
+        long start = System.currentTimeMillis();
+        createIndex(dir.resolve(INDEX_FILE), initialCapacity);
+        long fileSize = log.size();
+        long position = 0;
+        long maxVersion = 0;
+        AssetView view = new AssetView();
+        CRC32C crc = new CRC32C();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(dir.resolve(LOG_FILE)), 1 << 16))) {
+            while (position + RECORD_HEADER <= fileSize) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || position + RECORD_HEADER + length > fileSize) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                view.wrap(payload, 0, length);
+                indexPut(view.getAssetId(), position, length);
+                maxVersion = Math.max(maxVersion, view.getVersion());
+                position += RECORD_HEADER + length;
+            }
+        } catch (EOFException ignored) {
+            // Torn tail; everything before position is intact
+        }
+
+        if (position < fileSize) {
+            logger.warn("Truncating {} bytes of torn log tail at offset {}", fileSize - position, position);
+            log.truncate(position);
+        }
+        logEnd = position;
+        version.set(maxVersion);
+        writeHeader(index);
+        logger.info("Recovered {} assets from {} log bytes in {} ms",
+                size, logEnd, System.currentTimeMillis() - start);
+    }
+
+    private void createIndex(Path file, int requestedCapacity) throws IOException {
+        if (indexChannel != null && indexChannel.isOpen() && file.equals(dir.resolve(INDEX_FILE))) {
+            indexChannel.close();
+        }
+        int newCapacity = Integer.highestOneBit(Math.max(16, requestedCapacity - 1) << 1);
+        long bytes = INDEX_HEADER + (long) newCapacity * SLOT_SIZE;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Index capacity " + newCapacity + " exceeds a single mapping");
+        }
+        indexChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        capacity = newCapacity;
+        size = 0;
+        generation++;
+        index.putInt(H_MAGIC, INDEX_MAGIC);
+        index.putInt(H_CAPACITY, capacity);
+    }
+
+    /**
+     * Point the asset's slot at a new record, growing the index when it gets too full
+     */
+    private void indexPut(String assetId, long offset, int length) throws IOException {
+        long hash = hash(assetId);
+        AssetView view = new AssetView();
+        for (int slot = home(hash); ; slot = next(slot)) {
+            int pos = slotPosition(slot);
+            long slotHash = index.getLong(pos);
+            if (slotHash == 0) break;
+            if (slotHash == hash) {
+                int oldLength = index.getInt(pos + 16);
+                byte[] payload = readPayload(index.getLong(pos + 8), oldLength);
+                if (view.wrap(payload, 0, oldLength).assetIdEquals(assetId)) {
+                    deadBytes += RECORD_HEADER + oldLength;
+                    index.putLong(pos + 8, offset);
+                    index.putInt(pos + 16, length);
+                    index.putLong(H_DEAD_BYTES, deadBytes);
+                    return;
+                }
+            }
+        }
+        if (size + 1 > capacity * MAX_LOAD) {
+            resize(capacity * 2);
+        }
+        insertSlot(hash, offset, length);
+        size++;
+        index.putInt(H_SIZE, size);
+    }
+
+    private void insertSlot(long hash, long offset, int length) {
+        int slot = home(hash);
+        while (index.getLong(slotPosition(slot)) != 0) {
+            slot = next(slot);
+        }
+        int pos = slotPosition(slot);
+        index.putLong(pos, hash);
+        index.putLong(pos + 8, offset);
+        index.putInt(pos + 16, length);
+    }
+
+    private void resize(int newCapacity) throws IOException {
+        MappedByteBuffer old = index;
+        FileChannel oldChannel = indexChannel;
+        int oldCapacity = capacity;
+        int oldSize = size;
+        Path compactIndex = dir.resolve(INDEX_FILE + COMPACT_SUFFIX);
+        createIndex(compactIndex, newCapacity);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int pos = INDEX_HEADER + slot * SLOT_SIZE;
+            long hash = old.getLong(pos);
+            if (hash != 0) {
+                insertSlot(hash, old.getLong(pos + 8), old.getInt(pos + 16));
+            }
+        }
+        size = oldSize;
+        writeHeader(index);
+        Files.move(compactIndex, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        oldChannel.close();
+        logger.debug("Resized local asset index from {} to {} slots", oldCapacity, capacity);
+    }
+
+    private void writeHeader(MappedByteBuffer header) {
+        header.putInt(H_SIZE, size);
+        header.putLong(H_VERSION, version.get());
+        header.putLong(H_LOG_END, logEnd);
+        header.putLong(H_DEAD_BYTES, deadBytes);
+    }
+
+    private byte[] readPayload(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(log, buffer, offset + RECORD_HEADER);
+        return buffer.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) throw new EOFException("Record at " + offset + " runs past the end of the log");
+        }
+    }
+
+    private List<Map.Entry<String, Double>> readHotIds(int instanceIndex) throws IOException {
+        Path file = dir.resolve(HOT_FILE_PREFIX + instanceIndex);
+        if (!Files.exists(file)) {
+            return Collections.emptyList();
+        }
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                ranked.add(new AbstractMap.SimpleEntry<>(line.substring(tab + 1), Double.parseDouble(line.substring(0, tab))));
+            }
+        }
+        return ranked;
+    }
+
+    private void notifyListeners(String assetId, long assetVersion) {
+        for (BiConsumer<String, Long> listener : listeners) {
+            listener.accept(assetId, assetVersion);
+        }
+    }
+
+    private int capacityFor(int entries) {
+        return Math.max(initialCapacity, (int) Math.min(1 << 30, (long) (entries / MAX_LOAD) + 1));
+    }
+
+    private int home(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+
+    private int next(int slot) {
+        return (slot + 1) & (capacity - 1);
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER + slot * SLOT_SIZE;
+    }
+
+    /** 64-bit FNV-1a over the ID's chars; 0 marks an empty slot so it is never returned. */
+    private static long hash(String assetId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < assetId.length(); i++) {
+            hash ^= assetId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
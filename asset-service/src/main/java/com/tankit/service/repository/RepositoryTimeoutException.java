@@ -0,0 +1,11 @@
+package com.tankit.service.repository;
+
+/**
+ * Thrown when the asset store does not answer within the time a caller allowed for it
+ */
+public class RepositoryTimeoutException extends RuntimeException {
+
+    public RepositoryTimeoutException(String message) {
+        super(message);
+    }
+}
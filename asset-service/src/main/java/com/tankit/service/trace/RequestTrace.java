@@ -0,0 +1,70 @@
+package com.tankit.service.trace;
+
+/**
+ * Nanosecond breakdown of where one GetAssets call spent its time.
+ *
+ * The trace is bound to the handling thread while the call runs, so lower layers such as
+ * the repository can add to it through {@link #current()} without it being passed down.
+ * When the call is not traced {@code current()} returns null and callers skip timing.
+ */
+public final class RequestTrace {
+
+    public enum Phase { L1_LOOKUP, L2_FETCH, DECODE, CONVERT, ON_NEXT }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    private final boolean requested;
+    private long totalNanos;
+    private int assetsRequested;
+    private int assetsFound;
+
+    RequestTrace(boolean requested) {
+        this.requested = requested;
+    }
+
+    /**
+     * The trace of the call running on this thread, or null if it is not traced
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    public void add(Phase phase, long elapsedNanos) {
+        nanos[phase.ordinal()] += elapsedNanos;
+        counts[phase.ordinal()]++;
+    }
+
+    public long getNanos(Phase phase) { return nanos[phase.ordinal()]; }
+
+    public int getCount(Phase phase) { return counts[phase.ordinal()]; }
+
+    public void setOutcome(int assetsRequested, int assetsFound) {
+        this.assetsRequested = assetsRequested;
+        this.assetsFound = assetsFound;
+    }
+
+    public int getAssetsRequested() { return assetsRequested; }
+
+    public int getAssetsFound() { return assetsFound; }
+
+    /** Whether the client asked for this trace, as opposed to it being sampled. */
+    public boolean isRequested() { return requested; }
+
+    /** Wall-clock nanos from start to {@link #stop()}, or so far if still running. */
+    public long getTotalNanos() {
+        return totalNanos != 0 ? totalNanos : System.nanoTime() - startNanos;
+    }
+
+    void attach() {
+        CURRENT.set(this);
+    }
+
+    void stop() {
+        totalNanos = System.nanoTime() - startNanos;
+        CURRENT.remove();
+    }
+}
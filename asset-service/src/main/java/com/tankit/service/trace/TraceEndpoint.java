@@ -0,0 +1,24 @@
+package com.tankit.service.trace;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code /actuator/assettraces}) listing recent GetAssets traces, newest first
+ */
+@Component
+@Endpoint(id = "assettraces")
+public class TraceEndpoint {
+
+    @Autowired
+    private TraceRecorder traceRecorder;
+
+    @ReadOperation
+    public List<TraceRecorder.Record> traces() {
+        return traceRecorder.recent();
+    }
+}
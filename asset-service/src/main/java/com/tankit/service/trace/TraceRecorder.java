@@ -0,0 +1,112 @@
+package com.tankit.service.trace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Starts request traces, either because the client asked or by sampling
+ * {@code grpc.trace.sample-rate} of calls, and keeps the most recent finished ones in a
+ * fixed-size ring buffer for the {@code assettraces} actuator endpoint.
+ */
+@Component
+public class TraceRecorder {
+
+    @Value("${grpc.trace.sample-rate:0.0}")
+    private double sampleRate;
+
+    @Value("${grpc.trace.buffer-size:256}")
+    private int bufferSize;
+
+    private AtomicReferenceArray<Record> ring;
+    private final AtomicLong written = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        ring = new AtomicReferenceArray<>(Math.max(1, bufferSize));
+    }
+
+    /**
+     * Start tracing the call on this thread if requested or sampled
+     *
+     * @return the trace, or null if the call is not traced
+     */
+    public RequestTrace start(boolean requested) {
+        if (!requested && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return null;
+        }
+        RequestTrace trace = new RequestTrace(requested);
+        trace.attach();
+        return trace;
+    }
+
+    /**
+     * Stop the trace and keep it in the ring buffer
+     */
+    public void finish(RequestTrace trace) {
+        trace.stop();
+        Record record = new Record(trace);
+        ring.set((int) (written.getAndIncrement() % ring.length()), record);
+    }
+
+    /**
+     * Recorded traces, newest first
+     */
+    public List<Record> recent() {
+        List<Record> records = new ArrayList<>(ring.length());
+        for (int i = 0; i < ring.length(); i++) {
+            Record record = ring.get(i);
+            if (record != null) records.add(record);
+        }
+        records.sort(Collections.reverseOrder((a, b) -> a.timestamp.compareTo(b.timestamp)));
+        return records;
+    }
+
+    /**
+     * Immutable view of a finished trace, serialized by the actuator endpoint
+     */
+    public static final class Record {
+        private final Instant timestamp = Instant.now();
+        private final boolean requested;
+        private final int assetsRequested;
+        private final int assetsFound;
+        private final long totalNanos;
+        private final Map<RequestTrace.Phase, Long> phaseNanos = new EnumMap<>(RequestTrace.Phase.class);
+        private final Map<RequestTrace.Phase, Integer> phaseCounts = new EnumMap<>(RequestTrace.Phase.class);
+
+        Record(RequestTrace trace) {
+            this.requested = trace.isRequested();
+            this.assetsRequested = trace.getAssetsRequested();
+            this.assetsFound = trace.getAssetsFound();
+            this.totalNanos = trace.getTotalNanos();
+            for (RequestTrace.Phase phase : RequestTrace.Phase.values()) {
+                phaseNanos.put(phase, trace.getNanos(phase));
+                phaseCounts.put(phase, trace.getCount(phase));
+            }
+        }
+
+        public Instant getTimestamp() { return timestamp; }
+
+        public boolean isRequested() { return requested; }
+
+        public int getAssetsRequested() { return assetsRequested; }
+
+        public int getAssetsFound() { return assetsFound; }
+
+        public long getTotalNanos() { return totalNanos; }
+
+        public Map<RequestTrace.Phase, Long> getPhaseNanos() { return phaseNanos; }
+
+        public Map<RequestTrace.Phase, Integer> getPhaseCounts() { return phaseCounts; }
+    }
+}